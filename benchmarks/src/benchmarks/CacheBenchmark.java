@@ -0,0 +1,82 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import solver.BatchSolver;
+import solver.SolutionCache;
+import solver.SolveResult;
+import sudoku.grid.CanonicalForm;
+import sudoku.grid.Canonicalizer;
+import sudoku.grid.GridLayout;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+    // The cost of the SolutionCache on one grid, against solving it without a cache:
+    // - solve: no cache
+    // - miss: canonical form, lookup, solve and insertion (the cache only keeps the last grid)
+    // - hit: canonical form, lookup and mapping back, for a grid equivalent to a grid in the cache
+    // - canonicalize: the canonical form alone
+
+    @Param({"easy", "medium", "hard", "unsolvable"})
+    public String corpus;
+
+    private int[][] grids;
+    private int[][] equivalentGrids;
+    private BatchSolver plainSolver;
+    private BatchSolver missSolver;
+    private BatchSolver hitSolver;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        grids = Corpus.loadGrids(corpus);
+        plainSolver = new BatchSolver(true, false);
+        missSolver = new BatchSolver(true, false);
+        missSolver.setCache(new SolutionCache(1));
+        hitSolver = new BatchSolver(true, false);
+        hitSolver.setCache(new SolutionCache(grids.length));
+
+        // Relabelled and transposed grids, looked up once their originals are in the cache
+        GridLayout layout = GridLayout.STANDARD;
+        equivalentGrids = new int[grids.length][layout.getCellCount()];
+        for (int i = 0; i < grids.length; i++) {
+            hitSolver.solve(grids[i]);
+            for (int index = 0; index < layout.getCellCount(); index++) {
+                int value = grids[i][layout.index(layout.getCol(index), layout.getRow(index))];
+                equivalentGrids[i][index] = value > 0 ? value % layout.getSize() + 1 : 0;
+            }
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = next + 1 == grids.length ? 0 : next + 1;
+        return index;
+    }
+
+    @Benchmark
+    public SolveResult solve() {
+        return plainSolver.solve(grids[nextIndex()]);
+    }
+
+    @Benchmark
+    public SolveResult miss() {
+        return missSolver.solve(grids[nextIndex()]);
+    }
+
+    @Benchmark
+    public SolveResult hit() {
+        return hitSolver.solve(equivalentGrids[nextIndex()]);
+    }
+
+    @Benchmark
+    public CanonicalForm canonicalize() {
+        return Canonicalizer.canonicalize(grids[nextIndex()]);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import sudoku.GridParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Corpus {
+    // Fixed grids used by the benchmarks, loaded from benchmarks/corpus:
+    // easy, medium and hard grids are solved by the rules, unsolvable grids
+    // make the rules stall.
+
+    private Corpus() {
+    }
+
+    /*
+     * Loads the lines of a corpus.
+     */
+    public static byte[][] loadLines(String name) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name + ".txt")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown corpus: " + name);
+            }
+
+            List<byte[]> lines = new ArrayList<>();
+            for (String line : new String(in.readAllBytes(), StandardCharsets.ISO_8859_1).split("\n")) {
+                if (!line.isBlank()) {
+                    lines.add(line.trim().getBytes(StandardCharsets.ISO_8859_1));
+                }
+            }
+            return lines.toArray(new byte[0][]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Loads the grids of a corpus.
+     */
+    public static int[][] loadGrids(String name) {
+        byte[][] lines = loadLines(name);
+        int[][] grids = new int[lines.length][];
+        for (int i = 0; i < lines.length; i++) {
+            grids[i] = new int[81];
+            if (GridParser.parse(lines[i], 0, lines[i].length, grids[i]) != 81) {
+                throw new IllegalStateException("Invalid grid at line " + (i + 1) + " of corpus " + name);
+            }
+        }
+        return grids;
+    }
+
+    /*
+     * Converts a grid to the compact format (one character per cell, '.' for empty cells).
+     */
+    public static byte[] toCompact(int[] grid) {
+        byte[] line = new byte[grid.length];
+        for (int i = 0; i < grid.length; i++) {
+            line[i] = (byte) (grid[i] > 0 ? '0' + grid[i] : '.');
+        }
+        return line;
+    }
+}
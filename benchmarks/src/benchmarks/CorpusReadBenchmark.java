@@ -0,0 +1,72 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import sudoku.BinaryCorpus;
+import sudoku.BinaryCorpusWriter;
+import sudoku.GridReader;
+import sudoku.GridSource;
+import sudoku.grid.GridLayout;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorpusReadBenchmark {
+    // Reading a whole file of grids through its GridSource: GridReader for the text formats,
+    // BinaryCorpus for the binary corpus (the scores are in grids per millisecond).
+
+    private static final int GRIDS = 10000;
+
+    @Param({"csv", "compact", "binary"})
+    public String format;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[][] grids = Corpus.loadGrids("hard");
+        byte[][] lines = Corpus.loadLines("hard");
+        file = Files.createTempFile("corpus", "." + format);
+
+        if (format.equals("binary")) {
+            try (BinaryCorpusWriter writer = new BinaryCorpusWriter(file, GridLayout.STANDARD, true)) {
+                for (int i = 0; i < GRIDS; i++) {
+                    writer.write(grids[i % grids.length], i + 1);
+                }
+            }
+            return;
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int i = 0; i < GRIDS; i++) {
+                out.write(format.equals("compact") ? Corpus.toCompact(grids[i % grids.length]) : lines[i % lines.length]);
+                out.write('\n');
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GRIDS)
+    public long readAll() throws IOException {
+        long sum = 0;
+        try (GridSource source = format.equals("binary") ? new BinaryCorpus(file) : new GridReader(file)) {
+            int[] grid;
+            while ((grid = source.nextGrid()) != null) {
+                sum += grid[0];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,46 @@
+package benchmarks;
+
+import generator.PuzzleGenerator;
+import org.openjdk.jmh.annotations.*;
+import solver.SolutionCounter;
+import sudoku.grid.GridLayout;
+import sudoku.grid.SudokuGrid;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+    // generate: one unique-solution 9x9 puzzle per operation, without target difficulty.
+    // countSolutions: the uniqueness check (solution count up to 2) of a corpus grid.
+
+    @Param({"easy", "medium", "hard", "unsolvable"})
+    public String corpus;
+
+    private PuzzleGenerator generator;
+    private int[][] grids;
+    private long number;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        generator = new PuzzleGenerator(GridLayout.STANDARD, 42);
+        grids = Corpus.loadGrids(corpus);
+    }
+
+    @Benchmark
+    public int[] generate() {
+        return generator.generate(number++);
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        int[] grid = grids[next];
+        next = next + 1 == grids.length ? 0 : next + 1;
+        return SolutionCounter.countSolutions(new SudokuGrid(grid), 2);
+    }
+}
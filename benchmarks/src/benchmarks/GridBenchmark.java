@@ -0,0 +1,34 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import sudoku.grid.SudokuGrid;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+    // Construction of a SudokuGrid from its clues (one grid per operation).
+
+    @Param({"easy", "medium", "hard", "unsolvable"})
+    public String corpus;
+
+    private int[][] grids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        grids = Corpus.loadGrids(corpus);
+    }
+
+    @Benchmark
+    public SudokuGrid construct() {
+        int[] grid = grids[next];
+        next = next + 1 == grids.length ? 0 : next + 1;
+        return new SudokuGrid(grid);
+    }
+}
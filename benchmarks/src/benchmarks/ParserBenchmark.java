@@ -0,0 +1,44 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import sudoku.GridParser;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    // Parsing of one input line by GridParser, as used by Utils and GridReader,
+    // in the comma-separated format of the corpora and in the compact format.
+
+    @Param({"separated", "compact"})
+    public String format;
+
+    private byte[][] lines;
+    private final int[] grid = new int[81];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        if (format.equals("compact")) {
+            int[][] grids = Corpus.loadGrids("hard");
+            lines = new byte[grids.length][];
+            for (int i = 0; i < grids.length; i++) {
+                lines[i] = Corpus.toCompact(grids[i]);
+            }
+        } else {
+            lines = Corpus.loadLines("hard");
+        }
+    }
+
+    @Benchmark
+    public int parse() {
+        byte[] line = lines[next];
+        next = next + 1 == lines.length ? 0 : next + 1;
+        return GridParser.parse(line, 0, line.length, grid);
+    }
+}
@@ -0,0 +1,36 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import solver.Rating;
+import solver.RatingEngine;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatingBenchmark {
+    // The RatingEngine on one grid per operation, easiest technique first at each step.
+
+    @Param({"easy", "medium", "hard", "unsolvable"})
+    public String corpus;
+
+    private final RatingEngine engine = new RatingEngine();
+    private int[][] grids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        grids = Corpus.loadGrids(corpus);
+    }
+
+    @Benchmark
+    public Rating rate() {
+        int[] grid = grids[next];
+        next = next + 1 == grids.length ? 0 : next + 1;
+        return engine.rate(grid);
+    }
+}
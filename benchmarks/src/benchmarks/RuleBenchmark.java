@@ -0,0 +1,83 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import rules.DR1;
+import rules.DR2;
+import rules.DeductionRule;
+import solver.SudokuSolver;
+import sudoku.grid.SudokuGrid;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark {
+    // One DeductionRule.applyRule call on its own (one grid per operation).
+    //
+    // Rules change the grid, so each operation applies the rule to a copy of a
+    // prepared grid; the copy benchmark measures that copy alone. DR1 and DR2 get
+    // the grids as built from their clues, the other rules get them once DR1 and DR2 stalled.
+
+    @Param({"DR1", "DR2", "DR3", "NakedPair", "HiddenPair", "XWing", "NakedTriple", "HiddenTriple", "Swordfish",
+            "XYWing", "XYZWing", "SimpleColoring", "NakedQuad", "HiddenQuad", "Jellyfish"})
+    public String rule;
+
+    @Param({"easy", "medium", "hard", "unsolvable"})
+    public String corpus;
+
+    private DeductionRule deductionRule;
+    private SudokuGrid[] templates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        deductionRule = SudokuSolver.getDefaultRules().stream()
+                .filter(candidate -> candidate.getName().equals(rule))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown rule: " + rule));
+        boolean singles = deductionRule == DR1.getInstance() || deductionRule == DR2.getInstance();
+
+        int[][] grids = Corpus.loadGrids(corpus);
+        templates = new SudokuGrid[grids.length];
+        for (int i = 0; i < grids.length; i++) {
+            templates[i] = new SudokuGrid(grids[i]);
+            if (!singles) {
+                applySingles(templates[i]);
+            }
+        }
+    }
+
+    /*
+     * Applies DR1 and DR2 until they make no more progress.
+     */
+    private static void applySingles(SudokuGrid grid) {
+        long previousChanges;
+        do {
+            previousChanges = grid.getChangeCount();
+            DR1.getInstance().applyRule(grid);
+            DR2.getInstance().applyRule(grid);
+        } while (grid.getChangeCount() != previousChanges);
+    }
+
+    private SudokuGrid nextTemplate() {
+        SudokuGrid template = templates[next];
+        next = next + 1 == templates.length ? 0 : next + 1;
+        return template;
+    }
+
+    @Benchmark
+    public SudokuGrid applyRule() {
+        SudokuGrid grid = new SudokuGrid(nextTemplate());
+        deductionRule.applyRule(grid);
+        return grid;
+    }
+
+    @Benchmark
+    public SudokuGrid copy() {
+        return new SudokuGrid(nextTemplate());
+    }
+}
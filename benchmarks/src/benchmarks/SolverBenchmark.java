@@ -0,0 +1,43 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import solver.AutomaticSolverState;
+import solver.SudokuSolver;
+import sudoku.grid.SudokuGrid;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    // The full AutomaticSolverState loop, from the clues to the final state (one grid per operation).
+    // With search, grids the rules can't complete are finished by the BacktrackingSolverState.
+
+    @Param({"easy", "medium", "hard", "unsolvable"})
+    public String corpus;
+
+    @Param({"false", "true"})
+    public boolean search;
+
+    private int[][] grids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        grids = Corpus.loadGrids(corpus);
+    }
+
+    @Benchmark
+    public boolean solve() {
+        int[] grid = grids[next];
+        next = next + 1 == grids.length ? 0 : next + 1;
+
+        SudokuSolver solver = new SudokuSolver(new SudokuGrid(grid), new AutomaticSolverState(false, search));
+        solver.setQuiet(true);
+        return solver.solve();
+    }
+}
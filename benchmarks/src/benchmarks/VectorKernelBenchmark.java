@@ -0,0 +1,51 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import solver.BatchSolver;
+import solver.SolveResult;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorKernelBenchmark {
+    // A BatchSolver on one thread solving a whole corpus, with and without the VectorKernel
+    // (the scores are in grids per millisecond).
+
+    private static final int GRIDS = 200;
+
+    @Param({"easy", "medium", "hard"})
+    public String corpus;
+
+    @Param({"false", "true"})
+    public boolean vector;
+
+    private ForkJoinPool pool;
+    private BatchSolver solver;
+    private int[][] grids;
+
+    @Setup
+    public void setUp() {
+        grids = Arrays.copyOf(Corpus.loadGrids(corpus), GRIDS);
+        pool = new ForkJoinPool(1);
+        solver = new BatchSolver(pool, false, false);
+        solver.setVectorKernel(vector);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GRIDS)
+    public SolveResult[] solveAll() {
+        return solver.solveAll(Arrays.asList(grids));
+    }
+}
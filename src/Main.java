@@ -1,9 +1,28 @@
+import generator.HeadlessGenerator;
+import server.SolveServer;
+import solver.HeadlessSolver;
 import solver.SudokuSolver;
+import sudoku.CorpusConverter;
 import sudoku.Utils;
 
+import java.util.Arrays;
+
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("generate")) {
+            System.exit(HeadlessGenerator.run(Arrays.copyOfRange(args, 1, args.length))); // Generates puzzles.
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            System.exit(SolveServer.run(Arrays.copyOfRange(args, 1, args.length))); // Solves grids sent over HTTP.
+        }
+        if (args.length > 0 && args[0].equals("convert")) {
+            System.exit(CorpusConverter.run(Arrays.copyOfRange(args, 1, args.length))); // Converts grid files.
+        }
+        if (args.length > 0) {
+            System.exit(HeadlessSolver.run(args)); // Solves the grids of a file without interaction.
+        }
+
         Utils.welcome();              // Prints the welcome message and instructions.
         SudokuSolver.solveAllGrids(); // Solves all the grids.
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package generator;
+
+import solver.DifficultyLevel;
+import sudoku.OutputFormat;
+import sudoku.grid.GridLayout;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class HeadlessGenerator {
+    // Generates puzzles without any interaction, driven by command-line arguments,
+    // and writes one puzzle per line in the formats the headless solver reads.
+    //
+    // Puzzles are generated in parallel by chunks, so their lines are written as
+    // the run goes without keeping the whole batch in memory.
+
+    public static final String USAGE = "Usage: java Main generate --count <puzzles> [--output <file>] [--format csv|compact] "
+            + "[--difficulty easy|medium|hard|expert] [--minimal] [--seed <number>] [--box-size <2-5>]";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int CHUNK_SIZE = 1024;
+
+    private HeadlessGenerator() {
+    }
+
+    /*
+     * Runs the generator with the command-line arguments (following "generate") and returns the exit
+     * status: 0 on success, 1 if the puzzles couldn't be written or generated, 2 if the arguments are invalid.
+     */
+    public static int run(String[] args) {
+        long count = -1;
+        Path output = null;
+        OutputFormat format = OutputFormat.CSV;
+        DifficultyLevel difficulty = null;
+        boolean minimal = false;
+        long seed = System.nanoTime();
+        int boxSize = GridLayout.STANDARD.getBoxSize();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--count", "-n" -> count = parseNumber(argumentValue(args, ++i), "puzzle count", 0, Long.MAX_VALUE);
+                    case "--output", "-o" -> output = Path.of(argumentValue(args, ++i));
+                    case "--format", "-f" -> {
+                        format = OutputFormat.fromName(argumentValue(args, ++i));
+                        if (format == null) {
+                            throw new IllegalArgumentException("Unknown output format: " + args[i]);
+                        }
+                    }
+                    case "--difficulty", "-d" -> difficulty = parseDifficulty(argumentValue(args, ++i));
+                    case "--minimal" -> minimal = true;
+                    case "--seed" -> seed = parseNumber(argumentValue(args, ++i), "seed", Long.MIN_VALUE, Long.MAX_VALUE);
+                    case "--box-size" -> boxSize = (int) parseNumber(argumentValue(args, ++i), "box size", GridLayout.MIN_BOX_SIZE, GridLayout.MAX_BOX_SIZE);
+                    case "--help", "-h" -> {
+                        System.out.println(USAGE);
+                        return 0;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            if (count < 0) {
+                throw new IllegalArgumentException("Missing puzzle count.");
+            }
+        } catch (IllegalArgumentException e) { // Also covers InvalidPathException
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            PuzzleGenerator generator = new PuzzleGenerator(GridLayout.of(boxSize), seed);
+            generator.setDifficulty(difficulty);
+            generator.setMinimal(minimal);
+            write(generator, count, output, format);
+            return 0;
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            System.err.println("Error while writing the puzzles: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /*
+     * Gets the value following an argument.
+     */
+    private static String argumentValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1] + ".");
+        }
+        return args[index];
+    }
+
+    /*
+     * Parses a number argument between min and max.
+     */
+    private static long parseNumber(String value, String name, long min, long max) {
+        try {
+            long number = Long.parseLong(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+    private static DifficultyLevel parseDifficulty(String value) {
+        for (DifficultyLevel level : DifficultyLevel.values()) {
+            if (level != DifficultyLevel.UNSOLVABLE && level.name().equalsIgnoreCase(value)) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException("Unknown difficulty: " + value);
+    }
+
+    /*
+     * Generates the puzzles chunk by chunk and writes them to the output (the standard output if null).
+     */
+    private static void write(PuzzleGenerator generator, long count, Path output, OutputFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                output == null ? System.out : Files.newOutputStream(output), StandardCharsets.US_ASCII), BUFFER_SIZE);
+        char[] line = new char[format.maxLineLength(GridLayout.MAX_CELL_COUNT) + 1];
+
+        try {
+            for (long first = 0; first < count; first += CHUNK_SIZE) {
+                for (int[] puzzle : generator.generate(first, (int) Math.min(CHUNK_SIZE, count - first))) {
+                    int length = format.format(puzzle, line);
+                    line[length++] = '\n';
+                    writer.write(line, 0, length);
+                }
+            }
+        } finally {
+            if (output == null) {
+                writer.flush(); // Leave the standard output open
+            } else {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package generator;
+
+import solver.DifficultyLevel;
+import solver.RatingEngine;
+import solver.SolutionCounter;
+import sudoku.grid.Candidates;
+import sudoku.grid.GridLayout;
+import sudoku.grid.SudokuGrid;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+public class PuzzleGenerator {
+    // Generates puzzles with a unique solution.
+    //
+    // A random filled grid is built first, by a search trying the values in random order.
+    // Clues are then removed one at a time, in random order, as long as the solution stays
+    // unique: once a clue is removed, the puzzle has another solution only if that cell
+    // can hold another value, so one search for such a solution decides each removal.
+    // The search is cut after MAX_BRANCHES branch points, and a clue it couldn't decide is
+    // kept: on 25x25 grids a few searches would otherwise run for minutes, so large puzzles
+    // may keep a few clues a minimal puzzle wouldn't have.
+    //
+    // With a target difficulty, removals making the puzzle harder than the target are
+    // undone, and filled grids are drawn until the puzzle ends at the target. A minimal
+    // puzzle (no clue can be removed without losing uniqueness) is dug without this limit.
+    //
+    // Puzzles are rated by a RatingEngine, which gives the levels of the solver without going
+    // through it, so generating doesn't feed the adaptive scheduler nor the rule metrics.
+    //
+    // Puzzle i of a generator only depends on its seed and on i, so a batch is the same
+    // whatever the number of threads that generated it.
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 1000;
+    public static final long MAX_BRANCHES = 1000;
+
+    private final GridLayout layout;
+    private final long seed;
+    private final RatingEngine ratingEngine = new RatingEngine();
+    private DifficultyLevel difficulty;
+    private boolean minimal;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    public PuzzleGenerator(GridLayout layout, long seed) {
+        this.layout = layout;
+        this.seed = seed;
+    }
+
+    /*
+     * Sets the difficulty the puzzles must have, or null for any difficulty.
+     */
+    public void setDifficulty(DifficultyLevel difficulty) {
+        if (difficulty == DifficultyLevel.UNSOLVABLE) {
+            throw new IllegalArgumentException("Generated puzzles always have a solution.");
+        }
+        this.difficulty = difficulty;
+    }
+
+    /*
+     * Sets whether the puzzles must be minimal.
+     */
+    public void setMinimal(boolean minimal) {
+        this.minimal = minimal;
+    }
+
+    /*
+     * Sets the number of filled grids tried for one puzzle before giving up on the target difficulty.
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /*
+     * Generates count puzzles in parallel, numbered from first, with 0 for empty cells.
+     */
+    public List<int[]> generate(long first, int count) {
+        return LongStream.range(first, first + count).parallel().mapToObj(this::generate).toList();
+    }
+
+    /*
+     * Generates the puzzle of the given number, with 0 for empty cells.
+     */
+    public int[] generate(long number) {
+        SplittableRandom random = new SplittableRandom(seed + number * 0x9E3779B97F4A7C15L);
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            int[] puzzle = dig(fill(random), random);
+            if (difficulty == null || rate(puzzle) == difficulty) {
+                return puzzle;
+            }
+        }
+        throw new IllegalStateException("No " + difficulty + " puzzle found after " + maxAttempts + " attempts.");
+    }
+
+    /*
+     * Builds a random filled grid.
+     */
+    private int[] fill(SplittableRandom random) {
+        SudokuGrid grid = new SudokuGrid(layout, new int[layout.getCellCount()]);
+        if (!search(grid, random)) {
+            throw new IllegalStateException("An empty grid always has a solution.");
+        }
+        return grid.getValues();
+    }
+
+    /*
+     * Searches for a solution of the grid, trying the values of each cell in random order,
+     * and returns true if it found one, leaving the grid solved.
+     */
+    private boolean search(SudokuGrid grid, SplittableRandom random) {
+        SolutionCounter.propagate(grid);
+        if (grid.hasContradiction()) {
+            return false;
+        }
+
+        int index = SolutionCounter.selectCell(grid);
+        if (index == -1) {
+            return true;
+        }
+
+        int[] values = Candidates.toArray(grid.getCandidates(index));
+        shuffle(values, random);
+        for (int value : values) {
+            int checkpoint = grid.checkpoint();
+            grid.setValue(index, value);
+            if (search(grid, random)) {
+                return true;
+            }
+            grid.rollback(checkpoint);
+        }
+        return false;
+    }
+
+    /*
+     * Removes the clues of a filled grid in random order while the solution stays unique
+     * (and the puzzle no harder than the target, unless it must be minimal).
+     */
+    private int[] dig(int[] solution, SplittableRandom random) {
+        int[] puzzle = solution.clone();
+        int[] cells = new int[puzzle.length];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        shuffle(cells, random);
+
+        for (int cell : cells) {
+            int value = puzzle[cell];
+            puzzle[cell] = 0;
+
+            boolean unique = isForced(puzzle, cell) || !hasOtherSolution(puzzle, cell, value);
+
+            if (!unique || (difficulty != null && !minimal && rate(puzzle).compareTo(difficulty) > 0)) {
+                puzzle[cell] = value;
+            }
+        }
+        return puzzle;
+    }
+
+    /*
+     * Checks if the clues of the peers of an empty cell leave it a single value.
+     * Most early removals are settled this way, without building a grid.
+     */
+    private boolean isForced(int[] puzzle, int cell) {
+        int seen = 0;
+        for (int peer : layout.getPeers(cell)) {
+            if (puzzle[peer] > 0) {
+                seen |= Candidates.bit(puzzle[peer]);
+            }
+        }
+        return Candidates.count(Candidates.all(layout.getSize()) & ~seen) == 1;
+    }
+
+    /*
+     * Checks if the puzzle may have a solution where the empty cell doesn't hold the value:
+     * true if it has one, or if the search ran out of branches before telling.
+     */
+    private boolean hasOtherSolution(int[] puzzle, int cell, int value) {
+        SudokuGrid grid = new SudokuGrid(layout, puzzle);
+        grid.removeCellPossibleValue(cell, value);
+        return SolutionCounter.countSolutions(grid, 1, MAX_BRANCHES) != 0;
+    }
+
+    /*
+     * Rates a puzzle, expert if the rules can't complete it.
+     */
+    private DifficultyLevel rate(int[] puzzle) {
+        return ratingEngine.rate(new SudokuGrid(layout, puzzle)).getLevel();
+    }
+
+    private static void shuffle(int[] array, SplittableRandom random) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package rules;
 
-import sudoku.grid.Cell;
-import sudoku.grid.CellIterator;
+import sudoku.grid.Candidates;
+import sudoku.grid.PropagationQueue;
 import sudoku.grid.SudokuGrid;
 
 public class DR1 implements DeductionRule {
@@ -10,7 +10,7 @@ public class DR1 implements DeductionRule {
     // DR1 ("Naked Single" rule): If a cell has only one possible value,
     // then that value must be the correct value.
 
-    private static DR1 instance;
+    private static final DR1 instance = new DR1();
 
     private DR1() {
     }
@@ -19,23 +19,28 @@ public class DR1 implements DeductionRule {
      * Returns the instance of DR1.
      */
     public static DR1 getInstance() {
-        if (instance == null) {
-            instance = new DR1();
-        }
         return instance;
     }
 
+    @Override
+    public double getDifficulty() {
+        return 2.3;
+    }
+
     /*
      * Applies the Naked Single rule to the grid.
+     *
+     * Only the cells queued by the grid as they were left with a single candidate are
+     * checked; the cells queued by the placements made here are handled in the same call.
      */
     @Override
     public void applyRule(SudokuGrid grid) {
-        CellIterator iterator = grid.iterator();
-        while (iterator.hasNext()) {
-            Cell cell = iterator.next();
-            if (cell.getValue() == -1 && cell.getCellPossibleValues().size() == 1) {
-                int value = cell.getCellPossibleValues().iterator().next();
-                grid.setValue(cell.getRow(), cell.getCol(), value);
+        PropagationQueue queue = grid.getQueue();
+        int index;
+        while ((index = queue.pollCell()) != -1) {
+            int candidates = grid.getCandidates(index);
+            if (grid.getValue(index) == -1 && Candidates.count(candidates) == 1) {
+                grid.setValue(index, Candidates.lowest(candidates));
             }
         }
     }
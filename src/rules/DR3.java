@@ -1,18 +1,20 @@
 package rules;
 
-import sudoku.grid.Cell;
+import sudoku.grid.GridLayout;
 import sudoku.grid.SudokuGrid;
-import java.util.HashSet;
-import java.util.Set;
 
 public class DR3 implements DeductionRule {
     // SINGLETON //
 
-    // DR3 ("Pointing Pair" rule): If a value can only appear in two cells in a row
-    // or column within a 3x3 box, then that value cannot appear in any other cells
-    // in the same row or column outside the 3x3 box.
+    // DR3 ("Locked Candidates" rules):
+    // - Pointing: If a value can only appear in one row or column within a box,
+    //   then that value cannot appear in any other cells of that row or column outside the box.
+    // - Claiming (box-line reduction): If a value can only appear in one box within
+    //   a row or column, then that value cannot appear in any other cells of that box.
+    //
+    // Both come from the position masks of the value in the units (see SudokuGrid.getPositions).
 
-    private static DR3 instance;
+    private static final DR3 instance = new DR3();
 
     private DR3() {
     }
@@ -21,79 +23,120 @@ public class DR3 implements DeductionRule {
      * Returns the instance of DR3.
      */
     public static DR3 getInstance() {
-        if (instance == null) {
-            instance = new DR3();
-        }
         return instance;
     }
 
+    @Override
+    public double getDifficulty() {
+        return 2.6;
+    }
+
     /*
-     * Applies the Pointing Pair rule to the grid.
+     * Applies the Pointing and Claiming rules to the grid.
      */
     @Override
     public void applyRule(SudokuGrid grid) {
-        for (int boxRow = 0; boxRow < 9; boxRow += 3) {
-            for (int boxCol = 0; boxCol < 9; boxCol += 3) {
-                applyPointingPairBox(grid, boxRow, boxCol);
-            }
+        for (int box = 0; box < grid.getSize(); box++) {
+            applyPointingPairBox(grid, box);
+        }
+        for (int line = 0; line < grid.getSize(); line++) {
+            applyClaimingLine(grid, line, true);
+            applyClaimingLine(grid, line, false);
         }
     }
 
     /*
-     * Applies the Pointing Pair rule to a 3x3 box.
+     * Applies the Pointing Pair rule to a box.
      */
-    private void applyPointingPairBox(SudokuGrid grid, int boxRow, int boxCol) {
-        for (int value = 1; value <= 9; value++) {
-            Set<Integer> possibleRows = new HashSet<>();
-            Set<Integer> possibleCols = new HashSet<>();
-
-            // Find the possible rows and columns where the value can appear
-            for (int i = boxRow; i < boxRow + 3; i++) {
-                for (int j = boxCol; j < boxCol + 3; j++) {
-                    Cell cell = grid.getCell(i, j);
-                    if (cell.getValue() == -1 && cell.getCellPossibleValues().contains(value)) {
-                        possibleRows.add(i);
-                        possibleCols.add(j);
-                    }
-                }
+    private void applyPointingPairBox(SudokuGrid grid, int box) {
+        GridLayout layout = grid.getLayout();
+        int boxSize = layout.getBoxSize();
+        int boxUnit = layout.getBoxUnit(box);
+        int firstCell = layout.getUnit(boxUnit)[0];
+
+        for (int value = 1; value <= grid.getSize(); value++) {
+            int possibleRows = 0;
+            int possibleCols = 0;
+
+            // Find the possible rows and columns where the value can appear, from its positions in the box
+            for (int m = grid.getPositions(boxUnit, value); m != 0; m &= m - 1) {
+                int position = Integer.numberOfTrailingZeros(m);
+                possibleRows |= 1 << (layout.getRow(firstCell) + position / boxSize);
+                possibleCols |= 1 << (layout.getCol(firstCell) + position % boxSize);
             }
 
-            // Check if the value can only appear in one row or column within the 3x3 box
-            checkPointingPairLine(grid, boxRow, boxCol, value, possibleRows, true);
-            checkPointingPairLine(grid, boxRow, boxCol, value, possibleCols, false);
+            // Check if the value can only appear in one row or column within the box
+            checkPointingPairLine(grid, box, value, possibleRows, true);
+            checkPointingPairLine(grid, box, value, possibleCols, false);
         }
     }
 
     /*
-     * Checks if the value can only appear in one row or column within the 3x3 box.
+     * Checks if the value can only appear in one row or column within the box.
      */
-    private void checkPointingPairLine(SudokuGrid grid, int boxRow, int boxCol, int value, Set<Integer> possibleLines, boolean isRow) {
-        // If there's only one unique row or column where the value can appear in the 3x3 box
-        if (possibleLines.size() == 1) {
-            int line = possibleLines.iterator().next();
+    private void checkPointingPairLine(SudokuGrid grid, int box, int value, int possibleLines, boolean rows) {
+        // If there's only one unique row or column where the value can appear in the box
+        if (Integer.bitCount(possibleLines) == 1) {
+            GridLayout layout = grid.getLayout();
+            int line = Integer.numberOfTrailingZeros(possibleLines);
+            int lineUnit = rows ? layout.getRowUnit(line) : layout.getColUnit(line);
 
-            // Eliminate the value from the rest of the row or column outside the 3x3 box
-            eliminateOutsideBox(grid, boxRow, boxCol, value, line, isRow);
+            // Eliminate the value from the rest of the row or column outside the box
+            eliminateOutsideBox(grid, box, value, layout.getUnit(lineUnit));
         }
     }
 
     /*
-     * Eliminates the value from the rest of the row or column outside the 3x3 box.
+     * Eliminates the value from the cells of the line outside the box.
      */
-    private void eliminateOutsideBox(SudokuGrid grid, int boxRow, int boxCol, int value, int index, boolean isRow) {
-        // Eliminate the value from the rest of the row or column outside the 3x3 box
-        if (isRow) {
-            for (int col = 0; col < 9; col++) {
-                if (col < boxCol || col >= boxCol + 3) {
-                    grid.removeCellPossibleValue(index, col, value);
-                }
+    private void eliminateOutsideBox(SudokuGrid grid, int box, int value, int[] line) {
+        for (int index : line) {
+            if (grid.getLayout().getBox(index) != box) {
+                grid.removeCellPossibleValue(index, value);
             }
-        } else {
-            for (int row = 0; row < 9; row++) {
-                if (row < boxRow || row >= boxRow + 3) {
-                    grid.removeCellPossibleValue(row, index, value);
-                }
+        }
+    }
+
+    /*
+     * Applies the Claiming rule to a row or column.
+     *
+     * The positions of a value in a line are a mask over the cells of the line, so the
+     * value is confined to one box when its positions lie in a single segment of boxSize bits.
+     */
+    private void applyClaimingLine(SudokuGrid grid, int line, boolean row) {
+        GridLayout layout = grid.getLayout();
+        int boxSize = layout.getBoxSize();
+        int segment = (1 << boxSize) - 1;
+        int lineUnit = row ? layout.getRowUnit(line) : layout.getColUnit(line);
+
+        // Positions of the box cells lying in the line, as a mask over the cells of the box
+        int lineInBox = 0;
+        for (int k = 0; k < boxSize; k++) {
+            lineInBox |= 1 << (row ? (line % boxSize) * boxSize + k : k * boxSize + line % boxSize);
+        }
+
+        for (int value = 1; value <= grid.getSize(); value++) {
+            int positions = grid.getPositions(lineUnit, value);
+            if (positions == 0) {
+                continue;
+            }
+
+            int start = Integer.numberOfTrailingZeros(positions) / boxSize * boxSize;
+            if ((positions & ~(segment << start)) == 0) {
+                int cellInBox = row ? layout.index(line, start) : layout.index(start, line);
+                int boxUnit = layout.getBoxUnit(layout.getBox(cellInBox));
+                eliminateOutsideLine(grid, boxUnit, value, grid.getPositions(boxUnit, value) & ~lineInBox);
             }
         }
     }
-}
\ No newline at end of file
+
+    /*
+     * Eliminates the value from the cells of the box at the given positions (outside the line).
+     */
+    private void eliminateOutsideLine(SudokuGrid grid, int boxUnit, int value, int others) {
+        int[] box = grid.getLayout().getUnit(boxUnit);
+        for (int m = others; m != 0; m &= m - 1) {
+            grid.removeCellPossibleValue(box[Integer.numberOfTrailingZeros(m)], value);
+        }
+    }
+}
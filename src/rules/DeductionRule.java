@@ -5,5 +5,21 @@ import sudoku.grid.SudokuGrid;
 public interface DeductionRule {
     // Strategy //
 
+    // Rules keep no state between calls: all the state lives in the grid, so a
+    // single instance can be shared by solvers running on different threads.
+
     void applyRule(SudokuGrid grid);
+
+    /*
+     * Gets the difficulty of the technique for a human solver, on a scale where
+     * a hidden single is 1.5 and guessing is 10 (see RatingEngine).
+     */
+    double getDifficulty();
+
+    /*
+     * Gets the name of the rule, as shown in the metrics.
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
 }
\ No newline at end of file
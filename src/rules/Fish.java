@@ -0,0 +1,103 @@
+package rules;
+
+import sudoku.grid.GridLayout;
+import sudoku.grid.SudokuGrid;
+
+public class Fish extends SubsetRule {
+    // SINGLETON // (one instance per fish size)
+
+    // X-Wing, Swordfish and Jellyfish rules: If a value can only appear in n rows
+    // (the base lines), and its positions in these rows lie in the same n columns
+    // (the cover lines), then the value must appear in these columns within these
+    // rows, and cannot appear anywhere else in these columns. The same goes with
+    // the rows and columns swapped.
+    //
+    // The positions of a value in a row are a mask over the columns (see
+    // SudokuGrid.getPositions), so a fish is found from a few mask unions.
+
+    private static final String[] SIZE_NAMES = {"", "", "XWing", "Swordfish", "Jellyfish"};
+    private static final double[] SIZE_DIFFICULTIES = {0, 0, 3.2, 3.8, 5.2};
+    private static final Fish[] instances = {null, null, new Fish(2), new Fish(3), new Fish(4)};
+
+    private Fish(int size) {
+        super(size);
+    }
+
+    /*
+     * Returns the instance for fish of the given size: 2 (X-Wing), 3 (Swordfish) or 4 (Jellyfish).
+     */
+    public static Fish getInstance(int size) {
+        if (size < 2 || size >= instances.length) {
+            throw new IllegalArgumentException("Unsupported fish size: " + size);
+        }
+        return instances[size];
+    }
+
+    @Override
+    public String getName() {
+        return SIZE_NAMES[getSubsetSize()];
+    }
+
+    @Override
+    public double getDifficulty() {
+        return SIZE_DIFFICULTIES[getSubsetSize()];
+    }
+
+    /*
+     * Gets the number of groups: one per value with rows as base lines,
+     * and one per value with columns as base lines.
+     */
+    @Override
+    int getGroupCount(SudokuGrid grid) {
+        return 2 * grid.getSize();
+    }
+
+    /*
+     * Collects the base lines where the value isn't placed yet (as line bits)
+     * with at most n positions (as masks over the cover lines).
+     */
+    @Override
+    int collectItems(SudokuGrid grid, int group, int[] items, int[] masks) {
+        int value = group / 2 + 1;
+        boolean rowBase = group % 2 == 0;
+        GridLayout layout = grid.getLayout();
+        int count = 0;
+        int openLines = 0;
+
+        for (int line = 0; line < grid.getSize(); line++) {
+            int positions = grid.getPositions(rowBase ? layout.getRowUnit(line) : layout.getColUnit(line), value);
+            if (positions != 0) {
+                openLines++;
+                if (Integer.bitCount(positions) <= getSubsetSize()) {
+                    items[count] = 1 << line;
+                    masks[count] = positions;
+                    count++;
+                }
+            }
+        }
+
+        return openLines > getSubsetSize() ? count : 0;
+    }
+
+    /*
+     * Removes the value from the cover lines outside the base lines.
+     */
+    @Override
+    void applySubset(SudokuGrid grid, int group, int chosen, int union) {
+        int value = group / 2 + 1;
+        boolean rowBase = group % 2 == 0;
+        GridLayout layout = grid.getLayout();
+
+        for (int m = union; m != 0; m &= m - 1) {
+            int coverLine = Integer.numberOfTrailingZeros(m);
+            int coverUnit = rowBase ? layout.getColUnit(coverLine) : layout.getRowUnit(coverLine);
+
+            // The position of a cell in the cover line is the number of its base line
+            int others = grid.getPositions(coverUnit, value) & ~chosen;
+            int[] cells = layout.getUnit(coverUnit);
+            for (int p = others; p != 0; p &= p - 1) {
+                grid.removeCellPossibleValue(cells[Integer.numberOfTrailingZeros(p)], value);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package rules;
+
+import sudoku.grid.Candidates;
+import sudoku.grid.SudokuGrid;
+
+public class HiddenSubset extends SubsetRule {
+    // SINGLETON // (one instance per subset size)
+
+    // Hidden Pair, Triple and Quad rules: If n values can only appear in the same
+    // n cells of a row, column or box, then these cells must hold these values,
+    // and every other candidate can be removed from them.
+
+    private static final String[] SIZE_NAMES = {"", "", "Pair", "Triple", "Quad"};
+    private static final double[] SIZE_DIFFICULTIES = {0, 0, 3.4, 4.0, 5.4};
+    private static final HiddenSubset[] instances = {null, null, new HiddenSubset(2), new HiddenSubset(3), new HiddenSubset(4)};
+
+    private HiddenSubset(int subsetSize) {
+        super(subsetSize);
+    }
+
+    /*
+     * Returns the instance for subsets of the given size (2 to 4).
+     */
+    public static HiddenSubset getInstance(int subsetSize) {
+        if (subsetSize < 2 || subsetSize >= instances.length) {
+            throw new IllegalArgumentException("Unsupported subset size: " + subsetSize);
+        }
+        return instances[subsetSize];
+    }
+
+    @Override
+    public String getName() {
+        return "Hidden" + SIZE_NAMES[getSubsetSize()];
+    }
+
+    @Override
+    public double getDifficulty() {
+        return SIZE_DIFFICULTIES[getSubsetSize()];
+    }
+
+    /*
+     * Gets the number of units of the grid: the subsets are searched unit by unit.
+     */
+    @Override
+    int getGroupCount(SudokuGrid grid) {
+        return grid.getLayout().getUnitCount();
+    }
+
+    /*
+     * Collects the values not yet placed in the unit (as candidate bits) with at most
+     * subsetSize positions (as position masks).
+     */
+    @Override
+    int collectItems(SudokuGrid grid, int unit, int[] items, int[] masks) {
+        int count = 0;
+        int missingValues = 0;
+
+        for (int value = 1; value <= grid.getSize(); value++) {
+            int positions = grid.getPositions(unit, value);
+            if (positions != 0) {
+                missingValues++;
+                if (Integer.bitCount(positions) <= getSubsetSize()) {
+                    items[count] = Candidates.bit(value);
+                    masks[count] = positions;
+                    count++;
+                }
+            }
+        }
+
+        return missingValues > getSubsetSize() ? count : 0;
+    }
+
+    /*
+     * Keeps only the values of the subset in its cells.
+     */
+    @Override
+    void applySubset(SudokuGrid grid, int unit, int chosen, int union) {
+        int[] cells = grid.getLayout().getUnit(unit);
+        for (int m = union; m != 0; m &= m - 1) {
+            int index = cells[Integer.numberOfTrailingZeros(m)];
+            grid.setCandidates(index, grid.getCandidates(index) & chosen);
+        }
+    }
+}
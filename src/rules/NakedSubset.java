@@ -0,0 +1,87 @@
+package rules;
+
+import sudoku.grid.Candidates;
+import sudoku.grid.SudokuGrid;
+
+public class NakedSubset extends SubsetRule {
+    // SINGLETON // (one instance per subset size)
+
+    // Naked Pair, Triple and Quad rules: If n cells of a row, column or box hold
+    // only n candidates between them, then these values must go in these cells,
+    // and they cannot appear in any other cell of the unit.
+
+    private static final String[] SIZE_NAMES = {"", "", "Pair", "Triple", "Quad"};
+    private static final double[] SIZE_DIFFICULTIES = {0, 0, 3.0, 3.6, 5.0};
+    private static final NakedSubset[] instances = {null, null, new NakedSubset(2), new NakedSubset(3), new NakedSubset(4)};
+
+    private NakedSubset(int subsetSize) {
+        super(subsetSize);
+    }
+
+    /*
+     * Returns the instance for subsets of the given size (2 to 4).
+     */
+    public static NakedSubset getInstance(int subsetSize) {
+        if (subsetSize < 2 || subsetSize >= instances.length) {
+            throw new IllegalArgumentException("Unsupported subset size: " + subsetSize);
+        }
+        return instances[subsetSize];
+    }
+
+    @Override
+    public String getName() {
+        return "Naked" + SIZE_NAMES[getSubsetSize()];
+    }
+
+    @Override
+    public double getDifficulty() {
+        return SIZE_DIFFICULTIES[getSubsetSize()];
+    }
+
+    /*
+     * Gets the number of units of the grid: the subsets are searched unit by unit.
+     */
+    @Override
+    int getGroupCount(SudokuGrid grid) {
+        return grid.getLayout().getUnitCount();
+    }
+
+    /*
+     * Collects the empty cells of the unit (as position bits) with at most
+     * subsetSize candidates (as candidate masks).
+     */
+    @Override
+    int collectItems(SudokuGrid grid, int unit, int[] items, int[] masks) {
+        int[] cells = grid.getLayout().getUnit(unit);
+        int count = 0;
+        int emptyCells = 0;
+
+        for (int position = 0; position < cells.length; position++) {
+            if (grid.getValue(cells[position]) == -1) {
+                emptyCells++;
+                int candidates = grid.getCandidates(cells[position]);
+                if (Candidates.count(candidates) <= getSubsetSize()) {
+                    items[count] = 1 << position;
+                    masks[count] = candidates;
+                    count++;
+                }
+            }
+        }
+
+        return emptyCells > getSubsetSize() ? count : 0;
+    }
+
+    /*
+     * Removes the values of the subset from the other cells of the unit.
+     */
+    @Override
+    void applySubset(SudokuGrid grid, int unit, int chosen, int union) {
+        int[] cells = grid.getLayout().getUnit(unit);
+        for (int position = 0; position < cells.length; position++) {
+            int index = cells[position];
+            if ((chosen & (1 << position)) == 0 && grid.getValue(index) == -1) {
+                grid.setCandidates(index, grid.getCandidates(index) & ~union);
+            }
+        }
+    }
+}
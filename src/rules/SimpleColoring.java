@@ -0,0 +1,134 @@
+package rules;
+
+import sudoku.grid.GridLayout;
+import sudoku.grid.SudokuGrid;
+
+import java.util.Arrays;
+
+public class SimpleColoring implements DeductionRule {
+    // SINGLETON //
+
+    // Simple Coloring rule: When a value has exactly two positions in a unit (a conjugate
+    // pair), one of them holds it and the other doesn't. Chaining conjugate pairs splits
+    // their cells into two colors, exactly one of which holds the value:
+    // - Color wrap: if two cells of the same color see each other, that color can't hold
+    //   the value, so the value is removed from all its cells.
+    // - Color trap: a cell seeing cells of both colors can't hold the value.
+    //
+    // The conjugate pairs come from the units the grid keeps track of for each value
+    // (see SudokuGrid.nextConjugateUnit), so only the chains themselves are walked.
+
+    private static final SimpleColoring instance = new SimpleColoring();
+
+    private SimpleColoring() {
+    }
+
+    /*
+     * Returns the instance of SimpleColoring.
+     */
+    public static SimpleColoring getInstance() {
+        return instance;
+    }
+
+    @Override
+    public double getDifficulty() {
+        return 4.5;
+    }
+
+    /*
+     * Applies the Simple Coloring rule to the grid, one value at a time.
+     */
+    @Override
+    public void applyRule(SudokuGrid grid) {
+        GridLayout layout = grid.getLayout();
+        int[] colors = new int[layout.getCellCount()]; // 0 for uncolored cells, 1 or 2 otherwise
+        int[] chain = new int[layout.getCellCount()];
+
+        for (int value = 1; value <= grid.getSize(); value++) {
+            Arrays.fill(colors, 0);
+            for (int unit = grid.nextConjugateUnit(value, 0); unit != -1; unit = grid.nextConjugateUnit(value, unit + 1)) {
+                int start = layout.getUnit(unit)[Integer.numberOfTrailingZeros(grid.getPositions(unit, value))];
+                if (colors[start] == 0) {
+                    int length = colorChain(grid, value, start, colors, chain);
+                    applyChain(grid, value, colors, chain, length);
+                }
+            }
+        }
+    }
+
+    /*
+     * Colors the cells linked to the start cell by conjugate pairs, alternating the colors,
+     * and stores them in the chain. Returns the length of the chain.
+     */
+    private int colorChain(SudokuGrid grid, int value, int start, int[] colors, int[] chain) {
+        GridLayout layout = grid.getLayout();
+        colors[start] = 1;
+        chain[0] = start;
+        int length = 1;
+
+        for (int next = 0; next < length; next++) {
+            int cell = chain[next];
+            for (int unit : layout.getCellUnits(cell)) {
+                int positions = grid.getPositions(unit, value);
+                if (Integer.bitCount(positions) != 2) {
+                    continue;
+                }
+
+                int[] cells = layout.getUnit(unit);
+                int other = cells[Integer.numberOfTrailingZeros(positions)];
+                if (other == cell) {
+                    other = cells[31 - Integer.numberOfLeadingZeros(positions)];
+                }
+                if (colors[other] == 0) {
+                    colors[other] = 3 - colors[cell];
+                    chain[length++] = other;
+                }
+            }
+        }
+        return length;
+    }
+
+    /*
+     * Applies the color wrap, or else the color trap, to a chain.
+     */
+    private void applyChain(SudokuGrid grid, int value, int[] colors, int[] chain, int length) {
+        GridLayout layout = grid.getLayout();
+
+        for (int i = 0; i < length; i++) {
+            for (int j = i + 1; j < length; j++) {
+                if (colors[chain[i]] == colors[chain[j]] && layout.sees(chain[i], chain[j])) {
+                    int wrongColor = colors[chain[i]];
+                    for (int k = 0; k < length; k++) {
+                        if (colors[chain[k]] == wrongColor) {
+                            grid.removeCellPossibleValue(chain[k], value);
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+
+        // Without a wrap, a cell of the chain only sees cells of the other color
+        for (int row = 0; row < grid.getSize(); row++) {
+            for (int m = grid.getPositions(layout.getRowUnit(row), value); m != 0; m &= m - 1) {
+                int cell = layout.index(row, Integer.numberOfTrailingZeros(m));
+                if (seesBothColors(layout, cell, colors, chain, length)) {
+                    grid.removeCellPossibleValue(cell, value);
+                }
+            }
+        }
+    }
+
+    /*
+     * Checks if a cell sees cells of both colors of the chain.
+     */
+    private boolean seesBothColors(GridLayout layout, int cell, int[] colors, int[] chain, int length) {
+        int seen = 0;
+        for (int k = 0; k < length && seen != 3; k++) {
+            if (layout.sees(cell, chain[k])) {
+                seen |= colors[chain[k]];
+            }
+        }
+        return seen == 3;
+    }
+}
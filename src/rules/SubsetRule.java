@@ -0,0 +1,78 @@
+package rules;
+
+import sudoku.grid.GridLayout;
+import sudoku.grid.SudokuGrid;
+
+abstract class SubsetRule implements DeductionRule {
+    // Search shared by the naked and hidden subset rules and the fish rules.
+    //
+    // The rule splits the grid into groups (the units for the subset rules). In each
+    // group, it collects items (cells, values or lines) with a mask each (their
+    // candidates or positions), and looks for subsetSize items whose masks together
+    // hold exactly subsetSize bits. Combinations are built one item at a time, and
+    // dropped as soon as the union of their masks holds too many bits.
+
+    private final int subsetSize;
+
+    SubsetRule(int subsetSize) {
+        this.subsetSize = subsetSize;
+    }
+
+    /*
+     * Gets the number of items of the subsets found by the rule.
+     */
+    public int getSubsetSize() {
+        return subsetSize;
+    }
+
+    /*
+     * Applies the rule to every group of the grid.
+     */
+    @Override
+    public void applyRule(SudokuGrid grid) {
+        int[] items = new int[GridLayout.MAX_SIZE];
+        int[] masks = new int[GridLayout.MAX_SIZE];
+
+        for (int group = 0; group < getGroupCount(grid); group++) {
+            int count = collectItems(grid, group, items, masks);
+            if (count >= subsetSize) {
+                findSubsets(grid, group, items, masks, count, 0, 0, 0, 0);
+            }
+        }
+    }
+
+    /*
+     * Looks for subsets made of the chosen items and of items from start on.
+     */
+    private void findSubsets(SudokuGrid grid, int group, int[] items, int[] masks, int count,
+                             int start, int depth, int chosen, int union) {
+        if (depth == subsetSize) {
+            applySubset(grid, group, chosen, union);
+            return;
+        }
+
+        for (int i = start; i <= count - (subsetSize - depth); i++) {
+            int newUnion = union | masks[i];
+            if (Integer.bitCount(newUnion) <= subsetSize) {
+                findSubsets(grid, group, items, masks, count, i + 1, depth + 1, chosen | items[i], newUnion);
+            }
+        }
+    }
+
+    /*
+     * Gets the number of groups the rule searches.
+     */
+    abstract int getGroupCount(SudokuGrid grid);
+
+    /*
+     * Collects the items of a group that can be part of a subset: their identifying bits
+     * go into items and their masks into masks. Returns the number of items, or 0 if
+     * a subset couldn't remove anything.
+     */
+    abstract int collectItems(SudokuGrid grid, int group, int[] items, int[] masks);
+
+    /*
+     * Removes the candidates ruled out by a subset: the chosen items, whose masks hold the union.
+     */
+    abstract void applySubset(SudokuGrid grid, int group, int chosen, int union);
+}
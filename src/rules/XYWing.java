@@ -0,0 +1,81 @@
+package rules;
+
+import sudoku.grid.Candidates;
+import sudoku.grid.GridLayout;
+import sudoku.grid.SudokuGrid;
+
+public class XYWing implements DeductionRule {
+    // SINGLETON //
+
+    // XY-Wing rule: If a cell with the two candidates x and y (the pivot) sees a cell
+    // with the candidates x and z and a cell with the candidates y and z (the pincers),
+    // then one of the pincers must hold z, so z cannot appear in any cell seeing both.
+    //
+    // The three cells are bivalue cells, which the grid keeps track of (see
+    // SudokuGrid.nextBivalueCell), so only these cells and their peers are looked at.
+
+    private static final XYWing instance = new XYWing();
+
+    private XYWing() {
+    }
+
+    /*
+     * Returns the instance of XYWing.
+     */
+    public static XYWing getInstance() {
+        return instance;
+    }
+
+    @Override
+    public double getDifficulty() {
+        return 4.2;
+    }
+
+    @Override
+    public String getName() {
+        return "XYWing";
+    }
+
+    /*
+     * Applies the XY-Wing rule to the grid.
+     */
+    @Override
+    public void applyRule(SudokuGrid grid) {
+        GridLayout layout = grid.getLayout();
+        for (int pivot = grid.nextBivalueCell(0); pivot != -1; pivot = grid.nextBivalueCell(pivot + 1)) {
+            int pivotMask = grid.getCandidates(pivot);
+            int[] peers = layout.getPeers(pivot);
+
+            for (int i = 0; i < peers.length; i++) {
+                int first = peers[i];
+                int firstMask = grid.getCandidates(first);
+                int shared = firstMask & pivotMask;
+                if (!grid.isBivalue(first) || Candidates.count(shared) != 1) {
+                    continue;
+                }
+
+                // The other pincer holds the other candidate of the pivot and z
+                int z = firstMask & ~pivotMask;
+                int secondMask = (pivotMask & ~shared) | z;
+                for (int j = i + 1; j < peers.length; j++) {
+                    int second = peers[j];
+                    if (grid.getCandidates(second) == secondMask) {
+                        removeFromCommonPeers(grid, first, second, Candidates.lowest(z));
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Removes a value from the cells seeing both pincers.
+     */
+    private void removeFromCommonPeers(SudokuGrid grid, int first, int second, int value) {
+        GridLayout layout = grid.getLayout();
+        for (int cell : layout.getPeers(first)) {
+            if (layout.sees(cell, second)) {
+                grid.removeCellPossibleValue(cell, value);
+            }
+        }
+    }
+}
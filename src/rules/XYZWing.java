@@ -0,0 +1,78 @@
+package rules;
+
+import sudoku.grid.Candidates;
+import sudoku.grid.GridLayout;
+import sudoku.grid.SudokuGrid;
+
+public class XYZWing implements DeductionRule {
+    // SINGLETON //
+
+    // XYZ-Wing rule: If a cell with the three candidates x, y and z (the pivot) sees
+    // a cell with the candidates x and z and a cell with the candidates y and z
+    // (the pincers), then one of the three cells must hold z, so z cannot appear in
+    // any cell seeing all three.
+    //
+    // The search starts from the bivalue cells kept by the grid (see
+    // SudokuGrid.nextBivalueCell) and looks for the pivot among their peers.
+
+    private static final XYZWing instance = new XYZWing();
+
+    private XYZWing() {
+    }
+
+    /*
+     * Returns the instance of XYZWing.
+     */
+    public static XYZWing getInstance() {
+        return instance;
+    }
+
+    @Override
+    public double getDifficulty() {
+        return 4.4;
+    }
+
+    @Override
+    public String getName() {
+        return "XYZWing";
+    }
+
+    /*
+     * Applies the XYZ-Wing rule to the grid.
+     */
+    @Override
+    public void applyRule(SudokuGrid grid) {
+        GridLayout layout = grid.getLayout();
+        for (int first = grid.nextBivalueCell(0); first != -1; first = grid.nextBivalueCell(first + 1)) {
+            int firstMask = grid.getCandidates(first);
+
+            for (int pivot : layout.getPeers(first)) {
+                int pivotMask = grid.getCandidates(pivot);
+                if (Candidates.count(pivotMask) != 3 || (firstMask & ~pivotMask) != 0) {
+                    continue;
+                }
+
+                // Each wing is found from its lower pincer only
+                for (int second : layout.getPeers(pivot)) {
+                    int secondMask = grid.getCandidates(second);
+                    if (second > first && grid.isBivalue(second)
+                            && (secondMask & ~pivotMask) == 0 && secondMask != firstMask) {
+                        removeFromCommonPeers(grid, pivot, first, second, Candidates.lowest(firstMask & secondMask));
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Removes a value from the cells seeing the pivot and both pincers.
+     */
+    private void removeFromCommonPeers(SudokuGrid grid, int pivot, int first, int second, int value) {
+        GridLayout layout = grid.getLayout();
+        for (int cell : layout.getPeers(pivot)) {
+            if (layout.sees(cell, first) && layout.sees(cell, second)) {
+                grid.removeCellPossibleValue(cell, value);
+            }
+        }
+    }
+}
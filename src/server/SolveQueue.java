@@ -0,0 +1,172 @@
+package server;
+
+import solver.BatchSolver;
+import solver.SolveResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class SolveQueue implements AutoCloseable {
+    // Collects the grids of concurrent requests into micro-batches for a BatchSolver.
+    //
+    // A single dispatcher thread takes the requests waiting in the queue, up to maxBatch grids,
+    // and solves them with one call to the BatchSolver, which spreads them over its pool. While
+    // a batch is being solved the next requests pile up, so the batches grow with the load on
+    // their own; batchDelay can also hold a batch back for the requests about to arrive.
+    //
+    // The number of grids waiting or being solved is capped: a request that would go over the
+    // cap is rejected at once instead of waiting, so callers can back off or go elsewhere.
+
+    private final BatchSolver solver;
+    private final int capacity;
+    private final int maxBatch;
+    private final long batchDelay;
+    private final Semaphore permits;
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    /*
+     * Creates the queue, taking at most capacity grids, and starts its dispatcher.
+     * The batches hold at most maxBatch grids (unless a single request holds more) and
+     * wait at most batchDelay nanoseconds for more requests once one is there.
+     */
+    public SolveQueue(BatchSolver solver, int capacity, int maxBatch, long batchDelay) {
+        this.solver = solver;
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+        this.batchDelay = batchDelay;
+        this.permits = new Semaphore(capacity);
+        this.dispatcher = new Thread(this::dispatch, "solve-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /*
+     * Gets the greatest number of grids the queue takes.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /*
+     * Gets the number of grids waiting or being solved.
+     */
+    public int getPending() {
+        return capacity - permits.availablePermits();
+    }
+
+    /*
+     * Queues the grids (GridSource.INVALID_GRID for the invalid ones) to be solved in the next batch.
+     * Throws RejectedExecutionException if the queue can't take them now.
+     */
+    public CompletableFuture<Batch> submit(List<int[]> grids) {
+        if (closed) {
+            throw new RejectedExecutionException("The solve queue is closed.");
+        }
+        if (!permits.tryAcquire(grids.size())) {
+            throw new RejectedExecutionException("The solve queue is full.");
+        }
+
+        Job job = new Job(grids, System.nanoTime(), new CompletableFuture<>());
+        queue.add(job);
+        if (closed && queue.remove(job)) {
+            // Closed meanwhile, and the dispatcher won't take the job anymore
+            permits.release(grids.size());
+            throw new RejectedExecutionException("The solve queue is closed.");
+        }
+        return job.future;
+    }
+
+    /*
+     * Solves the queued requests batch after batch, until the queue is closed.
+     */
+    private void dispatch() {
+        List<Job> jobs = new ArrayList<>();
+        List<int[]> grids = new ArrayList<>();
+
+        while (!closed) {
+            try {
+                jobs.add(queue.take());
+                collect(jobs);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            grids.clear();
+            for (Job job : jobs) {
+                grids.addAll(job.grids);
+            }
+            long start = System.nanoTime();
+            try {
+                SolveResult[] results = solver.solveAll(grids);
+                long end = System.nanoTime();
+                int first = 0;
+                for (Job job : jobs) {
+                    SolveResult[] own = new SolveResult[job.grids.size()];
+                    System.arraycopy(results, first, own, 0, own.length);
+                    first += own.length;
+                    job.future.complete(new Batch(own, start - job.queued, end - start, grids.size()));
+                }
+            } catch (RuntimeException e) {
+                for (Job job : jobs) {
+                    job.future.completeExceptionally(e);
+                }
+            } finally {
+                permits.release(grids.size());
+                jobs.clear();
+            }
+        }
+
+        // Fail the requests left behind
+        queue.drainTo(jobs);
+        for (Job job : jobs) {
+            job.future.completeExceptionally(new RejectedExecutionException("The solve queue is closed."));
+        }
+    }
+
+    /*
+     * Adds the requests already waiting to the batch, then those arriving within the batch delay,
+     * until the batch is full.
+     */
+    private void collect(List<Job> jobs) throws InterruptedException {
+        int size = jobs.get(0).grids.size();
+        long deadline = System.nanoTime() + batchDelay;
+
+        while (size < maxBatch) {
+            Job job = queue.poll();
+            if (job == null) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0 || (job = queue.poll(left, TimeUnit.NANOSECONDS)) == null) {
+                    return;
+                }
+            }
+            jobs.add(job);
+            size += job.grids.size();
+        }
+    }
+
+    /*
+     * Stops the dispatcher once the batch being solved is done; the requests still queued fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+    }
+
+    // Grids of one request, with the time they were queued and the result to complete.
+    private record Job(List<int[]> grids, long queued, CompletableFuture<Batch> future) {
+    }
+
+    // Results of the grids of one request, with the time they waited in the queue and the time
+    // their batch took to solve (in nanoseconds), and the number of grids of the batch.
+    public record Batch(SolveResult[] results, long queueTime, long solveTime, int batchSize) {
+    }
+}
@@ -0,0 +1,450 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import solver.BatchSolver;
+import solver.SolutionCache;
+import solver.SolveResult;
+import sudoku.GridParser;
+import sudoku.GridSource;
+import sudoku.OutputFormat;
+import sudoku.grid.GridLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class SolveServer {
+    // Solves grids sent over HTTP, with the JDK's built-in server (com.sun.net.httpserver).
+    //
+    // POST /solve takes either JSON, {"puzzle": <grid>} or {"puzzles": [<grid>, ...]} with each grid
+    // given as a string in one of the input formats or as an array of integers, or text with one
+    // grid per line. The answer has the same type: for each grid the solution (as far as it could
+    // be solved), whether it is solved and its difficulty, with the time spent waiting and solving.
+    // GET /health tells how many grids are pending.
+    //
+    // Each request runs on its own virtual thread, which is parked while its grids wait in the
+    // SolveQueue, so many concurrent clients cost no platform thread each. The grids of concurrent
+    // requests are solved together in micro-batches; when the queue is full, requests are turned
+    // down with 503 and a Retry-After header rather than left waiting.
+
+    public static final String USAGE = "Usage: java Main serve [--host <address>] [--port <number>] [--queue <grids>] "
+            + "[--batch <grids>] [--batch-delay <ms>] [--no-search] [--cache <entries>] [--vector]";
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final int MAX_BODY_SIZE = 1 << 24;
+    private static final String JSON = "application/json";
+    private static final String TEXT = "text/plain; charset=us-ascii";
+
+    private final HttpServer server;
+    private final SolveQueue queue;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /*
+     * Creates the server on the address (port 0 for any free port), solving the grids through the queue.
+     */
+    public SolveServer(InetSocketAddress address, SolveQueue queue) throws IOException {
+        this.queue = queue;
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/solve", this::handleSolve);
+        this.server.createContext("/health", this::handleHealth);
+    }
+
+    /*
+     * Runs the server with the command-line arguments (following "serve") until the process is
+     * stopped. Returns the exit status if it can't run: 1 if the server couldn't start,
+     * 2 if the arguments are invalid.
+     */
+    public static int run(String[] args) {
+        String host = "127.0.0.1";
+        int port = DEFAULT_PORT;
+        int capacity = DEFAULT_QUEUE_CAPACITY;
+        int batchSize = DEFAULT_BATCH_SIZE;
+        int batchDelay = 0;
+        boolean searchHelp = true;
+        int cacheSize = 0;
+        boolean vectorKernel = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--host" -> host = argumentValue(args, ++i);
+                    case "--port", "-p" -> port = parseNumber(argumentValue(args, ++i), "port", 0, 65535);
+                    case "--queue" -> capacity = parseNumber(argumentValue(args, ++i), "queue capacity", 1, Integer.MAX_VALUE);
+                    case "--batch" -> batchSize = parseNumber(argumentValue(args, ++i), "batch size", 1, Integer.MAX_VALUE);
+                    case "--batch-delay" -> batchDelay = parseNumber(argumentValue(args, ++i), "batch delay", 0, 60_000);
+                    case "--no-search" -> searchHelp = false;
+                    case "--cache" -> cacheSize = parseNumber(argumentValue(args, ++i), "cache size", 0, Integer.MAX_VALUE);
+                    case "--vector" -> vectorKernel = true;
+                    case "--help", "-h" -> {
+                        System.out.println(USAGE);
+                        return 0;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            if (vectorKernel && !BatchSolver.isVectorKernelAvailable()) {
+                throw new IllegalArgumentException("--vector needs java --add-modules jdk.incubator.vector.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        BatchSolver solver = new BatchSolver(searchHelp, false);
+        if (cacheSize > 0) {
+            solver.setCache(new SolutionCache(cacheSize));
+        }
+        solver.setVectorKernel(vectorKernel);
+        SolveQueue queue = new SolveQueue(solver, capacity, batchSize, TimeUnit.MILLISECONDS.toNanos(batchDelay));
+
+        SolveServer server;
+        try {
+            server = new SolveServer(new InetSocketAddress(host, port), queue);
+        } catch (IOException e) {
+            queue.close();
+            System.err.println("Error while starting the server: " + e.getMessage());
+            return 1;
+        }
+        server.start();
+        InetSocketAddress address = server.getAddress();
+        System.err.println("Solving grids on http://" + address.getHostString() + ":" + address.getPort() + "/solve");
+
+        // Serve until the process is stopped
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }));
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            server.stop();
+        }
+        return 0;
+    }
+
+    /*
+     * Gets the value following an argument.
+     */
+    private static String argumentValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1] + ".");
+        }
+        return args[index];
+    }
+
+    /*
+     * Parses a number argument between min and max.
+     */
+    private static int parseNumber(String value, String name, int min, int max) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+    /*
+     * Starts answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /*
+     * Gets the address the server listens on.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /*
+     * Stops taking requests, gives the requests being answered a second to complete, then closes the queue.
+     */
+    public void stop() {
+        server.stop(1);
+        queue.close();
+        executor.close();
+    }
+
+    /*
+     * Answers GET /health with the number of grids waiting or being solved.
+     */
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                send(exchange, 405, TEXT, "Use GET.\n");
+                return;
+            }
+            send(exchange, 200, JSON, "{\"status\":\"ok\",\"pending\":" + queue.getPending()
+                    + ",\"capacity\":" + queue.getCapacity() + "}\n");
+        }
+    }
+
+    /*
+     * Answers POST /solve: parses the grids, waits for their batch to be solved and writes the results.
+     */
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long received = System.nanoTime();
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, TEXT, "Use POST.\n");
+                return;
+            }
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            boolean json = contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json");
+
+            Request request;
+            OutputFormat format;
+            try {
+                format = outputFormat(exchange.getRequestURI().getRawQuery());
+                byte[] body = readBody(exchange.getRequestBody());
+                if (body == null) {
+                    sendError(exchange, 413, json, "The body is larger than " + MAX_BODY_SIZE + " bytes.");
+                    return;
+                }
+                request = json ? parseJson(new String(body, StandardCharsets.UTF_8)) : parseText(body);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, json, e.getMessage());
+                return;
+            }
+            if (request.single() && request.grids().get(0) == GridSource.INVALID_GRID) {
+                sendError(exchange, 400, json, "Invalid grid.");
+                return;
+            }
+            if (request.grids().size() > queue.getCapacity()) {
+                sendError(exchange, 413, json, "At most " + queue.getCapacity() + " grids can be sent at once.");
+                return;
+            }
+
+            SolveQueue.Batch batch;
+            try {
+                batch = request.grids().isEmpty() ? new SolveQueue.Batch(new SolveResult[0], 0, 0, 0)
+                        : queue.submit(request.grids()).get();
+            } catch (RejectedExecutionException e) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, json, e.getMessage());
+                return;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RejectedExecutionException rejected) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    sendError(exchange, 503, json, rejected.getMessage());
+                } else {
+                    sendError(exchange, 500, json, "Error while solving the grids.");
+                }
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendError(exchange, 503, json, "The server is stopping.");
+                return;
+            }
+
+            long total = System.nanoTime() - received;
+            exchange.getResponseHeaders().set("Server-Timing", "queue;dur=" + millis(batch.queueTime())
+                    + ", solve;dur=" + millis(batch.solveTime()) + ", total;dur=" + millis(total));
+            if (json) {
+                send(exchange, 200, JSON, toJson(request, batch, format, total));
+            } else {
+                send(exchange, 200, TEXT, toText(batch, format));
+            }
+        }
+    }
+
+    /*
+     * Gets the format of the solutions from the query ("format=csv" or "format=compact", CSV by default).
+     */
+    private static OutputFormat outputFormat(String query) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("format=")) {
+                    OutputFormat format = OutputFormat.fromName(parameter.substring("format=".length()));
+                    if (format == null) {
+                        throw new IllegalArgumentException("Unknown output format: " + parameter.substring("format=".length()));
+                    }
+                    return format;
+                }
+            }
+        }
+        return OutputFormat.CSV;
+    }
+
+    /*
+     * Reads the whole body, or returns null if it is larger than MAX_BODY_SIZE.
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_SIZE + 1);
+        return body.length > MAX_BODY_SIZE ? null : body;
+    }
+
+    /*
+     * Parses a text body: one grid per line, with INVALID_GRID for the lines that don't hold one.
+     */
+    private static Request parseText(byte[] body) {
+        List<int[]> grids = new ArrayList<>();
+        int[] values = new int[GridLayout.MAX_CELL_COUNT];
+
+        for (int from = 0; from < body.length; ) {
+            int to = from;
+            while (to < body.length && body[to] != '\n') {
+                to++;
+            }
+            grids.add(parseGrid(body, from, to, values));
+            from = to + 1;
+        }
+        return new Request(grids, false);
+    }
+
+    /*
+     * Parses a JSON body, holding one grid ("puzzle") or an array of grids ("puzzles").
+     */
+    private static Request parseJson(String body) {
+        if (!(Json.parse(body) instanceof Map<?, ?> object)) {
+            throw new IllegalArgumentException("The JSON body must be an object.");
+        }
+
+        if (object.containsKey("puzzle")) {
+            return new Request(List.of(toGrid(object.get("puzzle"))), true);
+        }
+        if (object.get("puzzles") instanceof List<?> puzzles) {
+            List<int[]> grids = new ArrayList<>(puzzles.size());
+            for (Object puzzle : puzzles) {
+                grids.add(toGrid(puzzle));
+            }
+            return new Request(grids, false);
+        }
+        throw new IllegalArgumentException("The JSON body must hold \"puzzle\" or an array of \"puzzles\".");
+    }
+
+    /*
+     * Converts a JSON grid, a string in one of the input formats or an array of integers,
+     * to the values of the grid, or INVALID_GRID.
+     */
+    private static int[] toGrid(Object puzzle) {
+        int[] values = new int[GridLayout.MAX_CELL_COUNT];
+        if (puzzle instanceof String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            return parseGrid(bytes, 0, bytes.length, values);
+        }
+        if (!(puzzle instanceof List<?> list) || list.size() > values.length) {
+            return GridSource.INVALID_GRID;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (!(list.get(i) instanceof Long value) || value < -1 || value > GridLayout.MAX_BOX_SIZE * GridLayout.MAX_BOX_SIZE) {
+                return GridSource.INVALID_GRID;
+            }
+            values[i] = value.intValue();
+        }
+        return GridParser.isGrid(values, list.size()) ? Arrays.copyOf(values, list.size()) : GridSource.INVALID_GRID;
+    }
+
+    private static int[] parseGrid(byte[] bytes, int from, int to, int[] values) {
+        int count = GridParser.parse(bytes, from, to, values);
+        return GridParser.isGrid(values, count) ? Arrays.copyOf(values, count) : GridSource.INVALID_GRID;
+    }
+
+    /*
+     * Writes the results as JSON: a single result for a single grid, else an array of results.
+     */
+    private static String toJson(Request request, SolveQueue.Batch batch, OutputFormat format, long total) {
+        StringBuilder json = new StringBuilder();
+        char[] line = new char[format.maxLineLength(GridLayout.MAX_CELL_COUNT)];
+
+        if (request.single()) {
+            appendResult(json, batch.results()[0], format, line);
+            json.setLength(json.length() - 1); // Add the timings to the result
+            json.append(',');
+        } else {
+            json.append("{\"results\":[");
+            for (int i = 0; i < batch.results().length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                appendResult(json, batch.results()[i], format, line);
+            }
+            json.append("],");
+        }
+        json.append("\"timings\":{\"queueMs\":").append(millis(batch.queueTime()))
+                .append(",\"solveMs\":").append(millis(batch.solveTime()))
+                .append(",\"totalMs\":").append(millis(total))
+                .append(",\"batchSize\":").append(batch.batchSize())
+                .append("}}\n");
+        return json.toString();
+    }
+
+    private static void appendResult(StringBuilder json, SolveResult result, OutputFormat format, char[] line) {
+        if (result == null) {
+            json.append("{\"error\":\"Invalid grid.\"}");
+            return;
+        }
+        json.append("{\"solution\":\"").append(line, 0, format.format(result.getValues(), line))
+                .append("\",\"solved\":").append(result.isSolved())
+                .append(",\"difficulty\":\"").append(result.getDifficulty()).append("\"}");
+    }
+
+    /*
+     * Writes the results as text, one line per input line: the solution followed by the
+     * difficulty, or nothing if the line isn't a valid grid.
+     */
+    private static String toText(SolveQueue.Batch batch, OutputFormat format) {
+        StringBuilder text = new StringBuilder();
+        char[] line = new char[format.maxLineLength(GridLayout.MAX_CELL_COUNT)];
+
+        for (SolveResult result : batch.results()) {
+            if (result != null) {
+                text.append(line, 0, format.format(result.getValues(), line)).append(',').append(result.getDifficulty());
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, boolean json, String message) throws IOException {
+        if (json) {
+            send(exchange, status, JSON, Json.appendString(new StringBuilder("{\"error\":"), message).append("}\n").toString());
+        } else {
+            send(exchange, status, TEXT, message + "\n");
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Grids of a request, and whether it was a single grid rather than a list.
+    private record Request(List<int[]> grids, boolean single) {
+    }
+}
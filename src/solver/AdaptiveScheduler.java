@@ -0,0 +1,195 @@
+package solver;
+
+import rules.DeductionRule;
+import sudoku.grid.SudokuGrid;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AdaptiveScheduler implements RuleScheduler {
+    // SINGLETON // (the shared instance, other instances can be created with their own statistics)
+
+    // Runs the cheap rules (the first ones of the list) to a fixpoint, then tries the
+    // other rules from the cheapest to the most expensive per useful result: the time
+    // spent in a rule divided by the number of its invocations that made progress.
+    // When a costly rule makes progress, the cheap rules run again before anything else.
+    //
+    // The statistics are shared by all the solvers using the scheduler, so the order adapts
+    // as grids are solved. They can be saved to a file and loaded back in a later run.
+    // Rules without statistics keep their order from the list.
+
+    public static final int DEFAULT_CHEAP_RULE_COUNT = 3;
+
+    // Time given to every rule before it is measured, so one lucky or unlucky invocation
+    // doesn't decide the order on its own
+    private static final long PRIOR_TIME_NANOS = 10_000;
+
+    private static final AdaptiveScheduler instance = new AdaptiveScheduler(DEFAULT_CHEAP_RULE_COUNT);
+
+    private final int cheapRuleCount;
+    private final Map<String, RuleCost> costs = new ConcurrentHashMap<>();
+
+    public AdaptiveScheduler(int cheapRuleCount) {
+        this.cheapRuleCount = cheapRuleCount;
+    }
+
+    /*
+     * Returns the shared instance, which runs DR1, DR2 and DR3 to a fixpoint first.
+     */
+    public static AdaptiveScheduler getInstance() {
+        return instance;
+    }
+
+    @Override
+    public boolean applyRules(SudokuSolver solver) {
+        List<DeductionRule> rules = solver.getDeductionRules();
+        int cheapCount = Math.min(cheapRuleCount, rules.size());
+
+        boolean progressMade = applyCheapRules(solver, rules.subList(0, cheapCount));
+        if (progressMade || solver.getGrid().isSolved() || solver.getGrid().hasContradiction()) {
+            return progressMade;
+        }
+
+        for (DeductionRule rule : costOrder(rules.subList(cheapCount, rules.size()))) {
+            if (apply(solver, rule)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Applies the cheap rules in order, starting over with the first one after any progress,
+     * until none of them makes progress. Returns true if any progress was made.
+     */
+    private boolean applyCheapRules(SudokuSolver solver, List<DeductionRule> cheapRules) {
+        boolean progressMade = false;
+        int next = 0;
+        while (next < cheapRules.size() && !solver.getGrid().isSolved()) {
+            if (apply(solver, cheapRules.get(next))) {
+                progressMade = true;
+                next = 0;
+            } else {
+                next++;
+            }
+        }
+        return progressMade;
+    }
+
+    /*
+     * Applies a rule, records its cost and returns true if it made progress.
+     */
+    private boolean apply(SudokuSolver solver, DeductionRule rule) {
+        SudokuGrid grid = solver.getGrid();
+        long previousChanges = grid.getChangeCount();
+        long time = solver.applyRule(rule);
+        boolean progress = grid.getChangeCount() != previousChanges;
+        getCost(rule.getName()).record(time, progress);
+        return progress;
+    }
+
+    /*
+     * Sorts the rules by cost per useful result, keeping the list order between equal costs.
+     */
+    private DeductionRule[] costOrder(List<DeductionRule> rules) {
+        DeductionRule[] ordered = rules.toArray(new DeductionRule[0]);
+        double[] scores = new double[ordered.length];
+        for (int i = 0; i < ordered.length; i++) {
+            scores[i] = getCost(ordered[i].getName()).score();
+        }
+
+        // Insertion sort: the lists are short and already sorted after a few grids
+        for (int i = 1; i < ordered.length; i++) {
+            DeductionRule rule = ordered[i];
+            double score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] > score) {
+                ordered[j + 1] = ordered[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            ordered[j + 1] = rule;
+            scores[j + 1] = score;
+        }
+        return ordered;
+    }
+
+    private RuleCost getCost(String ruleName) {
+        return costs.computeIfAbsent(ruleName, name -> new RuleCost());
+    }
+
+    /*
+     * Gets the cost per useful result of a rule, in nanoseconds.
+     */
+    public double getCost(DeductionRule rule) {
+        return getCost(rule.getName()).score();
+    }
+
+    /*
+     * Adds the statistics saved in a file to the ones of the scheduler.
+     */
+    public void load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            properties.load(reader);
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            if (key.endsWith(".time")) {
+                String name = key.substring(0, key.length() - ".time".length());
+                try {
+                    getCost(name).add(Long.parseLong(properties.getProperty(key)),
+                            Long.parseLong(properties.getProperty(name + ".invocations", "0")),
+                            Long.parseLong(properties.getProperty(name + ".productive", "0")));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid statistics for " + name + " in " + file, e);
+                }
+            }
+        }
+    }
+
+    /*
+     * Saves the statistics of the scheduler to a file.
+     */
+    public void save(Path file) throws IOException {
+        Properties properties = new Properties();
+        costs.forEach((name, cost) -> {
+            properties.setProperty(name + ".time", String.valueOf(cost.time.sum()));
+            properties.setProperty(name + ".invocations", String.valueOf(cost.invocations.sum()));
+            properties.setProperty(name + ".productive", String.valueOf(cost.productive.sum()));
+        });
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+            properties.store(writer, "Rule costs of the adaptive scheduler");
+        }
+    }
+
+    private static class RuleCost {
+        private final LongAdder time = new LongAdder();
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder productive = new LongAdder();
+
+        void record(long timeNanos, boolean progress) {
+            add(timeNanos, 1, progress ? 1 : 0);
+        }
+
+        void add(long timeNanos, long invocationCount, long productiveCount) {
+            time.add(timeNanos);
+            invocations.add(invocationCount);
+            productive.add(productiveCount);
+        }
+
+        double score() {
+            return (double) (time.sum() + PRIOR_TIME_NANOS) / (productive.sum() + 1);
+        }
+    }
+}
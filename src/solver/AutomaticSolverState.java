@@ -1,14 +1,22 @@
 package solver;
 
-import rules.DeductionRule;
-import sudoku.grid.Cell;
 import sudoku.grid.SudokuGrid;
 
 public class AutomaticSolverState implements SolverState {
     boolean userCanHelp;
+    boolean searchCanHelp;
 
     public AutomaticSolverState(boolean userHelp) {
+        this(userHelp, false);
+    }
+
+    /*
+     * When searchHelp is set, grids the rules can't complete are handed to the
+     * BacktrackingSolverState instead of the user, so the solver never reads input.
+     */
+    public AutomaticSolverState(boolean userHelp, boolean searchHelp) {
         this.userCanHelp = userHelp;
+        this.searchCanHelp = searchHelp;
     }
 
     /*
@@ -16,8 +24,10 @@ public class AutomaticSolverState implements SolverState {
      */
     @Override
     public boolean solve(SudokuSolver solver) {
-        printSolvingModeMessage();
-        printInitialGrid(solver);
+        if (!solver.isQuiet()) {
+            printSolvingModeMessage(solver);
+            printInitialGrid(solver);
+        }
 
         int iterations = 0;
         boolean progressMade;
@@ -38,8 +48,8 @@ public class AutomaticSolverState implements SolverState {
     /*
      * Prints a message indicating that the automatic solving mode is active.
      */
-    private void printSolvingModeMessage() {
-        System.out.println("\u001B[36mAutomatic solving mode...\u001B[0m");
+    private void printSolvingModeMessage(SudokuSolver solver) {
+        solver.getOutput().println("\u001B[36mAutomatic solving mode...\u001B[0m");
     }
 
     /*
@@ -47,35 +57,15 @@ public class AutomaticSolverState implements SolverState {
      */
     private void printInitialGrid(SudokuSolver solver) {
         SudokuGrid grid = solver.getGrid();
-        grid.printGrid();
+        grid.printGrid(solver.getOutput());
     }
 
     /*
-     * Processes the deduction rules in order until no more progress can be made.
+     * Applies the deduction rules in the order chosen by the scheduler of the solver
+     * until one of them makes progress.
      */
     private boolean processDeductionRules(SudokuSolver solver) {
-        boolean progressMade = false;
-        Cell[][] previousGrid = solver.copyGrid(solver.getGrid().getGrid());
-
-        for (DeductionRule rule : solver.getDeductionRules()) {
-            applyRule(solver, rule);
-            if (solver.gridChanged(previousGrid, solver.getGrid().getGrid())) {
-                progressMade = true;
-                break;  // If progress is made, start over with the first rule
-            }
-        }
-
-        return progressMade;
-    }
-
-    /*
-     * Applies a deduction rule to the grid.
-     */
-    private void applyRule(SudokuSolver solver, DeductionRule rule) {
-        SolverContext context = solver.getContext();
-        context.setStrategy(rule);
-        context.execute(solver.getGrid());
-        solver.updateRuleUsage(rule);
+        return solver.getScheduler().applyRules(solver);
     }
 
     /*
@@ -92,17 +82,24 @@ public class AutomaticSolverState implements SolverState {
      * Handles the case when the grid is unsolved.
      */
     private boolean handleUnsolvedGrid(SudokuSolver solver, int iterations) {
+        if (searchCanHelp) {
+            solver.setState(new BacktrackingSolverState(iterations));
+            return solver.getState().solve(solver);
+        }
+
         if (userCanHelp) {
             solver.setState(new InteractiveSolverState());
             boolean interactiveResult = solver.getState().solve(solver);
 
             if (!interactiveResult) {
-                System.out.println("User chose not to assist. The grid is unsolvable.");
+                solver.getOutput().println("User chose not to assist. The grid is unsolvable.");
                 solver.setState(new FinalState(false, iterations, solver.getGrid()));
                 return false;
             }
         } else {
-            System.out.println("Automatic solving mode could not complete. The grid is unsolvable.");
+            if (!solver.isQuiet()) {
+                solver.getOutput().println("Automatic solving mode could not complete. The grid is unsolvable.");
+            }
             solver.setState(new FinalState(false, iterations, solver.getGrid()));
         }
 
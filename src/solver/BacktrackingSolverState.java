@@ -0,0 +1,107 @@
+package solver;
+
+import rules.DR1;
+import rules.DR2;
+import rules.DeductionRule;
+import sudoku.grid.Candidates;
+import sudoku.grid.SudokuGrid;
+
+public class BacktrackingSolverState implements SolverState {
+    // Depth-first search used when the deduction rules can't complete the grid.
+    //
+    // Branches on the empty cell with the fewest candidates, applies the Naked Single
+    // and Hidden Single rules after each guess and backtracks on contradiction.
+    //
+    // The search runs on the grid of the solver: each guess is made after a checkpoint
+    // and rolled back when it fails (see SudokuGrid.checkpoint), so no grid is copied.
+
+    private static final DeductionRule[] PROPAGATION_RULES = {DR1.getInstance(), DR2.getInstance()};
+
+    private final int iterations;
+    private int guesses;
+
+    public BacktrackingSolverState(int iterations) {
+        this.iterations = iterations;
+    }
+
+    /*
+     * Solves the grid using depth-first search.
+     */
+    @Override
+    public boolean solve(SudokuSolver solver) {
+        if (!solver.isQuiet()) {
+            printSolvingModeMessage(solver);
+        }
+
+        SudokuGrid grid = solver.getGrid();
+        int start = grid.checkpoint();
+        boolean found = search(solver, grid);
+        solver.addGuesses(guesses);
+
+        if (found) {
+            grid.release(start);
+            solver.classifyDifficulty();
+            solver.setState(new FinalState(true, iterations, grid));
+            return solver.getState().solve(solver);
+        }
+
+        grid.rollback(start);
+        if (!solver.isQuiet()) {
+            solver.getOutput().println("The search found no solution. The grid is unsolvable.");
+        }
+        solver.setState(new FinalState(false, iterations, grid));
+        return false;
+    }
+
+    /*
+     * Prints a message indicating that the search solving mode is active.
+     */
+    private void printSolvingModeMessage(SudokuSolver solver) {
+        solver.getOutput().println("\u001B[36mSearch solving mode...\u001B[0m");
+    }
+
+    /*
+     * Searches for a solution of the grid and returns true if it found one, leaving the grid solved.
+     * The grid is left in an unspecified state otherwise.
+     */
+    private boolean search(SudokuSolver solver, SudokuGrid grid) {
+        propagate(solver, grid);
+        if (grid.hasContradiction()) {
+            return false;
+        }
+
+        int index = SolutionCounter.selectCell(grid);
+        if (index == -1) {
+            return true; // No empty cell left
+        }
+
+        for (int m = grid.getCandidates(index); m != 0; m = Candidates.withoutLowest(m)) {
+            int checkpoint = grid.checkpoint();
+            grid.setValue(index, Candidates.lowest(m));
+            guesses++;
+
+            if (search(solver, grid)) {
+                return true;
+            }
+            grid.rollback(checkpoint);
+        }
+
+        return false;
+    }
+
+    /*
+     * Applies the Naked Single and Hidden Single rules until they make no more progress.
+     */
+    private void propagate(SudokuSolver solver, SudokuGrid grid) {
+        SolverContext context = solver.getContext();
+        long previousChanges;
+
+        do {
+            previousChanges = grid.getChangeCount();
+            for (DeductionRule rule : PROPAGATION_RULES) {
+                context.setStrategy(rule);
+                context.execute(grid);
+            }
+        } while (grid.getChangeCount() != previousChanges && !grid.hasContradiction());
+    }
+}
@@ -0,0 +1,290 @@
+package solver;
+
+import sudoku.GridSource;
+import sudoku.grid.CanonicalForm;
+import sudoku.grid.Canonicalizer;
+import sudoku.grid.SudokuGrid;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BatchSolver {
+    // Solves many grids in parallel on a fork-join pool.
+    //
+    // Each grid gets its own SudokuGrid and SudokuSolver, and the rules hold no state,
+    // so grids are solved independently. The solvers never read input: grids the rules
+    // can't complete are either left unsolved or handed to the search. Results are
+    // returned in input order, and the counters are updated without locking.
+    //
+    // Grids from a GridSource are solved in chunks: the next chunk is read and solved
+    // while the results of the current one are handed over, and at most two chunks
+    // are held in memory at any time.
+    //
+    // With a SolutionCache, 9x9 grids equivalent to a grid solved before get its result
+    // instead of being solved again.
+    //
+    // With the VectorKernel, each task first solves its grids with the singles, many grids at
+    // once, and only the grids the kernel can't complete go through a SudokuSolver.
+
+    private static final int GRIDS_PER_TASK = 16;
+    private static final int GRIDS_PER_CHUNK = 1024;
+
+    private final ForkJoinPool pool;
+    private final boolean searchHelp;
+    private final boolean keepTranscripts;
+    private final LongAdder solvedCount = new LongAdder();
+    private final Map<DifficultyLevel, LongAdder> difficultyCount = new EnumMap<>(DifficultyLevel.class);
+    private SolutionCache cache;
+    private int solutionLimit;
+    private RatingEngine ratingEngine;
+    private boolean vectorKernel;
+    private int gridsPerTask = GRIDS_PER_TASK;
+
+    public BatchSolver(boolean searchHelp, boolean keepTranscripts) {
+        this(ForkJoinPool.commonPool(), searchHelp, keepTranscripts);
+    }
+
+    public BatchSolver(ForkJoinPool pool, boolean searchHelp, boolean keepTranscripts) {
+        this.pool = pool;
+        this.searchHelp = searchHelp;
+        this.keepTranscripts = keepTranscripts;
+
+        // The map is filled once here and only read afterwards, so it can be shared by all threads
+        for (DifficultyLevel level : DifficultyLevel.values()) {
+            difficultyCount.put(level, new LongAdder());
+        }
+    }
+
+    /*
+     * Solves all the grids and returns the results in input order.
+     */
+    public SolveResult[] solveAll(List<int[]> grids) {
+        SolveResult[] results = new SolveResult[grids.size()];
+        pool.invoke(new SolveTask(grids.toArray(new int[0][]), results, 0, grids.size()));
+        return results;
+    }
+
+    /*
+     * Solves all the grids of the source and hands the results to the consumer in input order.
+     */
+    public void solveAll(GridSource source, ResultConsumer consumer) throws IOException {
+        Chunk current = readChunk(source);
+
+        while (current != null) {
+            Chunk next = readChunk(source);
+
+            current.task.join();
+            for (int i = 0; i < current.size; i++) {
+                consumer.accept(current.lineNumbers[i], current.grids[i], current.results[i]);
+            }
+
+            current = next;
+        }
+    }
+
+    /*
+     * Reads the next chunk of grids and starts solving it, or returns null if there are no grids left.
+     */
+    private Chunk readChunk(GridSource source) throws IOException {
+        Chunk chunk = new Chunk();
+        int[] grid;
+        while (chunk.size < GRIDS_PER_CHUNK && (grid = source.nextGrid()) != null) {
+            chunk.grids[chunk.size] = grid;
+            chunk.lineNumbers[chunk.size] = source.getLineNumber();
+            chunk.size++;
+        }
+
+        if (chunk.size == 0) {
+            return null;
+        }
+
+        chunk.task = new SolveTask(chunk.grids, chunk.results, 0, chunk.size);
+        pool.execute(chunk.task);
+        return chunk;
+    }
+
+    /*
+     * Sets the cache of results shared by the grids, or null to solve every grid.
+     */
+    public void setCache(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    /*
+     * Gets the cache of results shared by the grids, or null if there is none.
+     */
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    /*
+     * Sets the number of solutions up to which the solutions of each grid are counted
+     * (see SolveResult.getSolutionCount), or 0 not to count them. A limit of 2 tells unique grids apart.
+     */
+    public void setSolutionLimit(int solutionLimit) {
+        this.solutionLimit = solutionLimit;
+    }
+
+    /*
+     * Sets the engine rating each grid (see SolveResult.getRating), or null not to rate them.
+     */
+    public void setRatingEngine(RatingEngine ratingEngine) {
+        this.ratingEngine = ratingEngine;
+    }
+
+    /*
+     * Checks if the VectorKernel can be used: the JVM must have been started with --add-modules jdk.incubator.vector.
+     */
+    public static boolean isVectorKernelAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /*
+     * Sets whether the grids are tried with the VectorKernel before the solver. The kernel is skipped
+     * while transcripts, solution counts or ratings are asked for, as it doesn't produce them.
+     */
+    public void setVectorKernel(boolean vectorKernel) {
+        if (vectorKernel && !isVectorKernelAvailable()) {
+            throw new IllegalStateException("The vector kernel needs the jdk.incubator.vector module.");
+        }
+        this.vectorKernel = vectorKernel;
+        // A task fills at least all the lanes of the kernel
+        this.gridsPerTask = vectorKernel ? Math.max(GRIDS_PER_TASK, VectorKernel.getLaneCount()) : GRIDS_PER_TASK;
+    }
+
+    /*
+     * Checks if the grids go through the VectorKernel first.
+     */
+    private boolean usesVectorKernel() {
+        return vectorKernel && !keepTranscripts && solutionLimit == 0 && ratingEngine == null;
+    }
+
+    /*
+     * Solves one grid, or gets its result from the cache.
+     */
+    public SolveResult solve(int[] linearGrid) {
+        if (cache == null || !Canonicalizer.supports(linearGrid.length)) {
+            return count(solveGrid(linearGrid));
+        }
+
+        CanonicalForm form = Canonicalizer.canonicalize(linearGrid);
+        SolveResult result = cache.get(linearGrid, form);
+        if (result == null || (keepTranscripts && result.getTranscript() == null)
+                || (solutionLimit > 0 && result.getSolutionCount() == -1)
+                || (ratingEngine != null && result.getRating() == null)) {
+            result = solveGrid(linearGrid);
+            cache.put(linearGrid, form, result);
+        }
+        return count(result);
+    }
+
+    /*
+     * Solves one grid.
+     */
+    private SolveResult solveGrid(int[] linearGrid) {
+        SudokuGrid grid = new SudokuGrid(linearGrid);
+        int solutionCount = solutionLimit > 0 ? SolutionCounter.countSolutions(grid, solutionLimit) : -1;
+        Rating rating = ratingEngine == null ? null : ratingEngine.rate(grid);
+        SudokuSolver solver = new SudokuSolver(grid, new AutomaticSolverState(false, searchHelp));
+
+        ByteArrayOutputStream transcript = null;
+        if (keepTranscripts) {
+            transcript = new ByteArrayOutputStream();
+            solver.setOutput(new PrintStream(transcript, false));
+        } else {
+            solver.setQuiet(true);
+        }
+
+        boolean solved = solver.solve();
+        DifficultyLevel difficulty = solved ? solver.classifyDifficulty() : DifficultyLevel.UNSOLVABLE;
+        return new SolveResult(grid.getValues(), solved, difficulty, transcript == null ? null : transcript.toString(),
+                solutionCount, rating);
+    }
+
+    /*
+     * Updates the counters with a result.
+     */
+    private SolveResult count(SolveResult result) {
+        if (result.isSolved()) {
+            solvedCount.increment();
+        }
+        difficultyCount.get(result.getDifficulty()).increment();
+        return result;
+    }
+
+    /*
+     * Gets the number of grids solved so far.
+     */
+    public long getSolvedCount() {
+        return solvedCount.sum();
+    }
+
+    /*
+     * Gets the number of grids of the given difficulty level solved so far.
+     */
+    public long getDifficultyCount(DifficultyLevel level) {
+        return difficultyCount.get(level).sum();
+    }
+
+    public interface ResultConsumer {
+        /*
+         * Receives the result of the grid read from the given input line.
+         * The grid is GridSource.INVALID_GRID and the result is null if the line doesn't hold a valid grid.
+         */
+        void accept(long lineNumber, int[] grid, SolveResult result);
+    }
+
+    private static class Chunk {
+        // Grids read from a GridSource and solved together.
+
+        private final int[][] grids = new int[GRIDS_PER_CHUNK][];
+        private final long[] lineNumbers = new long[GRIDS_PER_CHUNK];
+        private final SolveResult[] results = new SolveResult[GRIDS_PER_CHUNK];
+        private int size;
+        private SolveTask task;
+    }
+
+    @SuppressWarnings("serial") // Tasks are never serialized: ForkJoinTask is Serializable only by inheritance
+    private class SolveTask extends RecursiveAction {
+        // Solves the grids in [from, to), splitting the range until it is small enough.
+
+        private final int[][] grids;
+        private final SolveResult[] results;
+        private final int from;
+        private final int to;
+
+        SolveTask(int[][] grids, SolveResult[] results, int from, int to) {
+            this.grids = grids;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= gridsPerTask) {
+                if (usesVectorKernel()) {
+                    VectorKernel.solve(grids, from, to, results);
+                }
+                for (int i = from; i < to; i++) {
+                    if (results[i] != null) {
+                        count(results[i]); // Solved by the kernel
+                    } else if (grids[i] != GridSource.INVALID_GRID) {
+                        results[i] = solve(grids[i]);
+                    }
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new SolveTask(grids, results, from, middle), new SolveTask(grids, results, middle, to));
+        }
+    }
+}
@@ -1,5 +1,21 @@
 package solver;
 
+import rules.DR1;
+import rules.DR2;
+import rules.DeductionRule;
+
 public enum DifficultyLevel {
-    EASY, MEDIUM, HARD, UNSOLVABLE
-}
\ No newline at end of file
+    EASY, MEDIUM, HARD, EXPERT, UNSOLVABLE;
+
+    /*
+     * Gets the level of a grid the rules complete without guessing, from the last rule it needs
+     * in the order of the solver: naked singles (DR1) alone are easy, hidden singles (DR2) medium,
+     * and anything else hard. The solver and the RatingEngine both classify grids with it.
+     */
+    public static DifficultyLevel of(DeductionRule lastNeeded) {
+        if (lastNeeded == null || lastNeeded == DR1.getInstance()) {
+            return EASY;
+        }
+        return lastNeeded == DR2.getInstance() ? MEDIUM : HARD;
+    }
+}
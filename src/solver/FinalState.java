@@ -1,7 +1,10 @@
 package solver;
 
+import rules.DeductionRule;
 import sudoku.grid.SudokuGrid;
 
+import java.io.PrintStream;
+
 public class FinalState implements SolverState {
     private final boolean solved;
     private final int iterations;
@@ -18,35 +21,41 @@ public class FinalState implements SolverState {
      */
     @Override
     public boolean solve(SudokuSolver solver) {
-        printSolveStatus();
-        printGrid();
-        printDeductionRuleUsage(solver);
+        if (!solver.isQuiet()) {
+            PrintStream out = solver.getOutput();
+            printSolveStatus(out);
+            printGrid(out);
+            printDeductionRuleUsage(solver, out);
+        }
         return solved;
     }
 
     /*
      * Prints the status of the Sudoku grid after solving.
      */
-    private void printSolveStatus() {
+    private void printSolveStatus(PrintStream out) {
         String message = solved ?
                 "\u001B[32mSudoku solved after " + iterations + " iterations.\u001B[0m" :
                 "\u001B[31mThe Sudoku couldn't be fully solved after " + iterations + " iterations.\u001B[0m";
-        System.out.println(message);
+        out.println(message);
     }
 
     /*
      * Prints the final state of the Sudoku grid.
      */
-    private void printGrid() {
-        grid.printGrid();
+    private void printGrid(PrintStream out) {
+        grid.printGrid(out);
     }
 
     /*
      * Prints the number of times each deduction rule was used.
      */
-    private void printDeductionRuleUsage(SudokuSolver solver) {
-        System.out.printf("DR1 was used %d times.\n", solver.getDr1Uses());
-        System.out.printf("DR2 was used %d times.\n", solver.getDr2Uses());
-        System.out.printf("DR3 was used %d times.\n", solver.getDr3Uses());
+    private void printDeductionRuleUsage(SudokuSolver solver, PrintStream out) {
+        for (DeductionRule rule : solver.getDeductionRules()) {
+            out.printf("%s was used %d times.\n", rule.getName(), solver.getRuleUses(rule));
+        }
+        if (solver.getGuesses() > 0) {
+            out.printf("The search made %d guesses.\n", solver.getGuesses());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package solver;
+
+import rules.DeductionRule;
+import sudoku.grid.SudokuGrid;
+
+public class FixedOrderScheduler implements RuleScheduler {
+    // SINGLETON //
+
+    // Applies the rules in the order of the list, and starts over with the first rule
+    // as soon as one makes progress.
+
+    private static final FixedOrderScheduler instance = new FixedOrderScheduler();
+
+    private FixedOrderScheduler() {
+    }
+
+    /*
+     * Returns the instance of FixedOrderScheduler.
+     */
+    public static FixedOrderScheduler getInstance() {
+        return instance;
+    }
+
+    @Override
+    public boolean applyRules(SudokuSolver solver) {
+        SudokuGrid grid = solver.getGrid();
+        for (DeductionRule rule : solver.getDeductionRules()) {
+            long previousChanges = grid.getChangeCount();
+            solver.applyRule(rule);
+            if (grid.getChangeCount() != previousChanges) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
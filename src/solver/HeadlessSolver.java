@@ -0,0 +1,342 @@
+package solver;
+
+import sudoku.BinaryCorpus;
+import sudoku.BinaryCorpusWriter;
+import sudoku.GridReader;
+import sudoku.GridSource;
+import sudoku.OutputFormat;
+import sudoku.grid.GridLayout;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+public class HeadlessSolver {
+    // Solves the grids of a file without any interaction, driven by command-line arguments.
+    //
+    // Nothing is read from the standard input and nothing is printed while solving:
+    // the output gets exactly one line per input line, in input order, holding the
+    // solved grid, the grid as far as it could be solved, or nothing if the input
+    // line isn't a valid grid. All lines go through one large buffered writer.
+    //
+    // When counting solutions, the lines hold the number of solutions of the grids instead,
+    // up to the limit (1 for a valid puzzle), to check grids before taking them in.
+    // When rating, they hold the rating, hardest technique and steps of the grids (see
+    // RatingEngine), after the number of solutions if both are asked for.
+    //
+    // With --vector, the grids are first solved with the singles by the VectorKernel,
+    // which needs the JVM to be started with --add-modules jdk.incubator.vector.
+    //
+    // The input can also be a binary corpus (see BinaryCorpus), recognized by its header.
+    // With --format binary, the solved grids are written as an indexed binary corpus,
+    // without the lines that don't hold a valid grid of the size of the first one.
+
+    public static final String USAGE = "Usage: java Main --input <file> [--output <file>] [--format csv|compact|binary] [--no-search] [--cache <entries>] [--count-solutions <limit>] [--rate] [--vector] [--rule-stats <file>] [--metrics]";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path input;
+    private final Path output;
+    private final OutputFormat format;
+    private final boolean searchHelp;
+    private final int cacheSize;
+    private int solutionLimit;
+    private boolean rate;
+    private boolean vectorKernel;
+    private boolean binaryOutput;
+
+    /*
+     * A cacheSize of 0 solves every grid, even when an equivalent grid was solved before.
+     */
+    public HeadlessSolver(Path input, Path output, OutputFormat format, boolean searchHelp, int cacheSize) {
+        this.input = input;
+        this.output = output;
+        this.format = format;
+        this.searchHelp = searchHelp;
+        this.cacheSize = cacheSize;
+    }
+
+    /*
+     * Sets the limit up to which the solutions of each grid are counted and written instead
+     * of the solved grid, or 0 to write the solved grids.
+     */
+    public void setSolutionLimit(int solutionLimit) {
+        this.solutionLimit = solutionLimit;
+    }
+
+    /*
+     * Runs the headless mode with the command-line arguments and returns the exit status:
+     * 0 on success, 1 if the grids couldn't be read or written, 2 if the arguments are invalid.
+     */
+    public static int run(String[] args) {
+        Path input = null;
+        Path output = null;
+        OutputFormat format = OutputFormat.CSV;
+        boolean searchHelp = true;
+        int cacheSize = 0;
+        int solutionLimit = 0;
+        boolean rate = false;
+        boolean vectorKernel = false;
+        boolean binaryOutput = false;
+        Path ruleStats = null;
+        boolean metrics = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--input", "-i" -> input = Path.of(argumentValue(args, ++i));
+                    case "--output", "-o" -> output = Path.of(argumentValue(args, ++i));
+                    case "--format", "-f" -> {
+                        binaryOutput = argumentValue(args, ++i).equals("binary");
+                        format = binaryOutput ? OutputFormat.CSV : OutputFormat.fromName(args[i]);
+                        if (format == null) {
+                            throw new IllegalArgumentException("Unknown output format: " + args[i]);
+                        }
+                    }
+                    case "--no-search" -> searchHelp = false;
+                    case "--cache" -> cacheSize = cacheSize(argumentValue(args, ++i));
+                    case "--count-solutions" -> solutionLimit = solutionLimit(argumentValue(args, ++i));
+                    case "--rate" -> rate = true;
+                    case "--vector" -> vectorKernel = true;
+                    case "--rule-stats" -> ruleStats = Path.of(argumentValue(args, ++i));
+                    case "--metrics" -> metrics = true;
+                    case "--help", "-h" -> {
+                        System.out.println(USAGE);
+                        return 0;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            if (input == null) {
+                throw new IllegalArgumentException("Missing input file.");
+            }
+            if (binaryOutput && (output == null || solutionLimit > 0 || rate)) {
+                throw new IllegalArgumentException("--format binary needs --output, and can't be used with --count-solutions or --rate.");
+            }
+            if (vectorKernel && !BatchSolver.isVectorKernelAvailable()) {
+                throw new IllegalArgumentException("--vector needs java --add-modules jdk.incubator.vector.");
+            }
+        } catch (IllegalArgumentException e) { // Also covers InvalidPathException
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            // The rule costs learnt in previous runs order the rules from the first grid on
+            AdaptiveScheduler scheduler = AdaptiveScheduler.getInstance();
+            if (ruleStats != null && Files.exists(ruleStats)) {
+                scheduler.load(ruleStats);
+            }
+
+            HeadlessSolver solver = new HeadlessSolver(input, output, format, searchHelp, cacheSize);
+            solver.setSolutionLimit(solutionLimit);
+            solver.setRate(rate);
+            solver.setVectorKernel(vectorKernel);
+            solver.setBinaryOutput(binaryOutput);
+            solver.solveAll();
+            if (ruleStats != null) {
+                scheduler.save(ruleStats);
+            }
+            if (metrics) {
+                RuleMetricsRegistry.getInstance().printSummary(System.err);
+            }
+            return 0;
+        } catch (NoSuchFileException e) {
+            System.err.println("File not found: " + e.getFile());
+            return 1;
+        } catch (IOException e) {
+            System.err.println("Error while solving the grids: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /*
+     * Gets the value following an argument.
+     */
+    private static String argumentValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1] + ".");
+        }
+        return args[index];
+    }
+
+    /*
+     * Parses the number of entries of the solution cache.
+     */
+    private static int cacheSize(String value) {
+        try {
+            int size = Integer.parseInt(value);
+            if (size >= 0) {
+                return size;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid cache size: " + value);
+    }
+
+    /*
+     * Sets whether the rating of each grid is written instead of the solved grid.
+     */
+    public void setRate(boolean rate) {
+        this.rate = rate;
+    }
+
+    /*
+     * Sets whether the grids are first solved with the singles by the VectorKernel, many grids at once.
+     */
+    public void setVectorKernel(boolean vectorKernel) {
+        this.vectorKernel = vectorKernel;
+    }
+
+    /*
+     * Sets whether the solved grids are written as an indexed binary corpus (to the output file)
+     * instead of text lines.
+     */
+    public void setBinaryOutput(boolean binaryOutput) {
+        if (binaryOutput && output == null) {
+            throw new IllegalStateException("A binary corpus can only be written to a file.");
+        }
+        this.binaryOutput = binaryOutput;
+    }
+
+    /*
+     * Parses the limit up to which solutions are counted.
+     */
+    private static int solutionLimit(String value) {
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit > 0) {
+                return limit;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid solution limit: " + value);
+    }
+
+    /*
+     * Solves all the grids of the input file and writes one line per input line to the output.
+     * The output is the standard output if no output file was given.
+     */
+    public void solveAll() throws IOException {
+        try (GridSource reader = BinaryCorpus.isBinaryCorpus(input) ? new BinaryCorpus(input) : new GridReader(input)) {
+            if (binaryOutput) {
+                solveAllToCorpus(reader);
+                return;
+            }
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    output == null ? System.out : Files.newOutputStream(output), StandardCharsets.US_ASCII), BUFFER_SIZE);
+            try {
+                solveAll(reader, writer);
+            } finally {
+                if (output == null) {
+                    writer.flush(); // Leave the standard output open
+                } else {
+                    writer.close();
+                }
+            }
+        }
+    }
+
+    /*
+     * Creates the batch solver set up with the options.
+     */
+    private BatchSolver createBatchSolver() {
+        BatchSolver batchSolver = new BatchSolver(searchHelp, false);
+        if (cacheSize > 0) {
+            batchSolver.setCache(new SolutionCache(cacheSize));
+        }
+        batchSolver.setSolutionLimit(solutionLimit);
+        if (rate) {
+            batchSolver.setRatingEngine(new RatingEngine());
+        }
+        batchSolver.setVectorKernel(vectorKernel);
+        return batchSolver;
+    }
+
+    /*
+     * Solves the grids of the source and writes the solved grids to the output file as a binary
+     * corpus, indexed with their input line numbers. The first valid grid sets the size of the grids.
+     */
+    private void solveAllToCorpus(GridSource reader) throws IOException {
+        BinaryCorpusWriter[] writer = {null};
+        try {
+            createBatchSolver().solveAll(reader, (lineNumber, grid, result) -> {
+                try {
+                    if (writer[0] == null && result != null) {
+                        writer[0] = new BinaryCorpusWriter(output, GridLayout.forCellCount(grid.length), true);
+                    }
+                    if (result != null && grid.length == writer[0].getLayout().getCellCount()) {
+                        writer[0].write(result.getValues(), lineNumber);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            if (writer[0] != null) {
+                writer[0].abort();
+            }
+            if (e instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw e;
+        }
+
+        if (writer[0] == null) {
+            writer[0] = new BinaryCorpusWriter(output, GridLayout.STANDARD, true);
+        }
+        writer[0].close();
+    }
+
+    /*
+     * Solves the grids of the source and writes their lines to the writer.
+     */
+    private void solveAll(GridSource reader, Writer writer) throws IOException {
+        BatchSolver batchSolver = createBatchSolver();
+        char[] line = new char[format.maxLineLength(GridLayout.MAX_CELL_COUNT) + 1];
+        long[] linesWritten = {0};
+
+        try {
+            batchSolver.solveAll(reader, (lineNumber, grid, result) -> {
+                try {
+                    // Blank lines are skipped by the reader: keep the output lines aligned with the input lines
+                    while (linesWritten[0] < lineNumber - 1) {
+                        writer.write('\n');
+                        linesWritten[0]++;
+                    }
+
+                    int length = result == null ? 0 : solutionLimit > 0 || rate
+                            ? formatReport(result, line)
+                            : format.format(result.getValues(), line);
+                    line[length++] = '\n';
+                    writer.write(line, 0, length);
+                    linesWritten[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /*
+     * Writes the solution count and/or the rating of a result into line and returns the number of characters written.
+     */
+    private int formatReport(SolveResult result, char[] line) {
+        String text = solutionLimit == 0 ? result.getRating().toString()
+                : !rate ? Integer.toString(result.getSolutionCount())
+                : result.getSolutionCount() + "," + result.getRating();
+        text.getChars(0, text.length(), line, 0);
+        return text.length();
+    }
+}
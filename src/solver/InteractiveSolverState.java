@@ -24,12 +24,12 @@ public class InteractiveSolverState implements SolverState {
             while (!userInteractionDone) {
                 System.out.print("The solver needs your help. If you don't want to help, type 'no' or 'n' to skip this grid or 'quit' to exit.\n");
 
-                int row = getValidLine(scanner, true); // Get a valid row number
+                int row = getValidLine(scanner, true, solver.getGrid().getSize()); // Get a valid row number
                 if (row == -1) {
                     return false;
                 }
 
-                int col = getValidLine(scanner, false); // Get a valid column number
+                int col = getValidLine(scanner, false, solver.getGrid().getSize()); // Get a valid column number
                 if (col == -1) {
                     return false;
                 }
@@ -65,9 +65,9 @@ public class InteractiveSolverState implements SolverState {
     /*
      * Gets a valid row or column number from the user or allows skipping.
      */
-    private int getValidLine(Scanner scanner, boolean isRow) {
+    private int getValidLine(Scanner scanner, boolean isRow, int size) {
         while (true) {
-            String input = getUserInput(scanner, "Enter the " + (isRow ? "row" : "column") + " number (1-9), or 'no'/'n' to skip: ");
+            String input = getUserInput(scanner, "Enter the " + (isRow ? "row" : "column") + " number (1-" + size + "), or 'no'/'n' to skip: ");
 
             if (input.equalsIgnoreCase("no") || input.equalsIgnoreCase("n")) {
                 return -1; // Signal to skip the grid
@@ -77,11 +77,11 @@ public class InteractiveSolverState implements SolverState {
 
             if (isValidInteger(input)) {
                 int line = Integer.parseInt(input);
-                if (line >= 1 && line <= 9) {
+                if (line >= 1 && line <= size) {
                     return line;
                 }
             }
-            System.out.println("\u001B[31mInvalid input. Please enter a number between 1 and 9.\u001B[0m");
+            System.out.println("\u001B[31mInvalid input. Please enter a number between 1 and " + size + ".\u001B[0m");
         }
     }
 
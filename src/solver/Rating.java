@@ -0,0 +1,65 @@
+package solver;
+
+import rules.DeductionRule;
+
+import java.util.Locale;
+
+public class Rating {
+    // Outcome of rating a puzzle (see RatingEngine).
+
+    private final double score;
+    private final DeductionRule hardestRule;
+    private final int steps;
+    private final double pathCost;
+    private final DifficultyLevel level;
+
+    public Rating(double score, DeductionRule hardestRule, int steps, double pathCost, DifficultyLevel level) {
+        this.score = score;
+        this.hardestRule = hardestRule;
+        this.steps = steps;
+        this.pathCost = pathCost;
+        this.level = level;
+    }
+
+    /*
+     * Gets the rating of the puzzle: the difficulty of the hardest technique it needs,
+     * RatingEngine.GUESS_DIFFICULTY if the rules can't complete it, 0 if it has no solution.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /*
+     * Gets the hardest technique used, or null if no technique was needed or could be used.
+     */
+    public DeductionRule getHardestRule() {
+        return hardestRule;
+    }
+
+    /*
+     * Gets the number of deductions on the solve path: the values placed, and the candidates
+     * removed by the rules that place nothing.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /*
+     * Gets the sum of the difficulties of the steps, which tells apart puzzles with the same score.
+     */
+    public double getPathCost() {
+        return pathCost;
+    }
+
+    /*
+     * Gets the difficulty level matching the hardest technique.
+     */
+    public DifficultyLevel getLevel() {
+        return level;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%.1f,%s,%d", score, hardestRule == null ? "" : hardestRule.getName(), steps);
+    }
+}
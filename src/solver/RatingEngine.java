@@ -0,0 +1,113 @@
+package solver;
+
+import rules.DR1;
+import rules.DR2;
+import rules.DeductionRule;
+import sudoku.grid.SudokuGrid;
+
+import java.util.Comparator;
+import java.util.List;
+
+public class RatingEngine {
+    // Rates puzzles by the techniques a human would need to solve them.
+    //
+    // At each step the rules are tried from the easiest to the hardest (see
+    // DeductionRule.getDifficulty), and the first one that makes progress is applied,
+    // so the solve path never uses a technique harder than needed. The rating is the
+    // difficulty of the hardest technique of the path, as with common puzzle ratings;
+    // the path cost (the sum of the step difficulties) breaks ties between puzzles.
+    // A step is one deduction: a value placed, or a candidate removed by a rule that
+    // places nothing, so a rule call that fills half the grid counts as many steps.
+    //
+    // The level is the one the solver gives (see DifficultyLevel.of), which doesn't follow
+    // the difficulties: the solver tries naked singles first, the path hidden singles.
+    //
+    // The rules are called directly, without the solver and its metrics, so a corpus can
+    // be rated in batch (see BatchSolver.setRatingEngine). Engines keep no state between
+    // puzzles and can be shared by threads.
+
+    public static final double GUESS_DIFFICULTY = 10.0;
+
+    private final DeductionRule[] rules;
+
+    public RatingEngine() {
+        this(SudokuSolver.getDefaultRules());
+    }
+
+    public RatingEngine(List<DeductionRule> rules) {
+        this.rules = rules.stream()
+                .sorted(Comparator.comparingDouble(DeductionRule::getDifficulty))
+                .toArray(DeductionRule[]::new);
+    }
+
+    /*
+     * Rates a puzzle given by its values in reading order, with 0 or -1 for empty cells.
+     */
+    public Rating rate(int[] linearGrid) {
+        return rate(new SudokuGrid(linearGrid));
+    }
+
+    /*
+     * Rates a puzzle. The grid is not modified.
+     */
+    public Rating rate(SudokuGrid puzzle) {
+        SudokuGrid grid = new SudokuGrid(puzzle);
+        DeductionRule hardest = null;
+        int steps = 0;
+        double pathCost = 0;
+
+        boolean singlesOnly = true;
+
+        while (!grid.isSolved() && !grid.hasContradiction()) {
+            long previousPlacements = grid.getPlacementCount();
+            long previousEliminations = grid.getEliminationCount();
+            DeductionRule rule = applyEasiestRule(grid);
+            if (rule == null) {
+                break;
+            }
+
+            // Placing a value removes candidates too: those aren't deductions of their own
+            long placed = grid.getPlacementCount() - previousPlacements;
+            int deductions = (int) Math.max(1, placed > 0 ? placed : grid.getEliminationCount() - previousEliminations);
+            steps += deductions;
+            pathCost += deductions * rule.getDifficulty();
+            if (hardest == null || rule.getDifficulty() > hardest.getDifficulty()) {
+                hardest = rule;
+            }
+            singlesOnly &= rule == DR1.getInstance() || rule == DR2.getInstance();
+        }
+
+        if (grid.hasContradiction() || (!grid.isSolved() && SolutionCounter.countSolutions(grid, 1) == 0)) {
+            return new Rating(0, hardest, steps, pathCost, DifficultyLevel.UNSOLVABLE);
+        }
+        if (!grid.isSolved()) {
+            return new Rating(GUESS_DIFFICULTY, hardest, steps, pathCost + GUESS_DIFFICULTY, DifficultyLevel.EXPERT);
+        }
+        return new Rating(hardest == null ? 0 : hardest.getDifficulty(), hardest, steps, pathCost,
+                singlesOnly ? singlesLevel(puzzle) : DifficultyLevel.of(hardest));
+    }
+
+    /*
+     * Applies the easiest rule that makes progress, and returns it, or null if none does.
+     */
+    private DeductionRule applyEasiestRule(SudokuGrid grid) {
+        for (DeductionRule rule : rules) {
+            long previousChanges = grid.getChangeCount();
+            rule.applyRule(grid);
+            if (grid.getChangeCount() != previousChanges) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Gets the level of a puzzle solved with singles: easy if naked singles complete it on their own.
+     * Any order of the singles completes the same puzzles, so one try with DR1 alone tells.
+     */
+    private static DifficultyLevel singlesLevel(SudokuGrid puzzle) {
+        SudokuGrid grid = new SudokuGrid(puzzle);
+        DR1.getInstance().applyRule(grid);
+        return DifficultyLevel.of(grid.isSolved() ? DR1.getInstance() : DR2.getInstance());
+    }
+}
@@ -0,0 +1,89 @@
+package solver;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class RuleMetrics implements RuleMetricsMXBean {
+    // Work done by one deduction rule, summed over all the solvers of the process.
+    //
+    // An invocation is productive if it placed a value or removed a candidate,
+    // and wasted otherwise. The counters are LongAdders, so solvers on different
+    // threads record their invocations without contending on a lock.
+
+    private final String ruleName;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder productiveInvocations = new LongAdder();
+    private final LongAdder totalTimeNanos = new LongAdder();
+    private final LongAdder placements = new LongAdder();
+    private final LongAdder eliminations = new LongAdder();
+
+    public RuleMetrics(String ruleName) {
+        this.ruleName = ruleName;
+    }
+
+    /*
+     * Records one invocation of the rule.
+     */
+    public void record(long timeNanos, long placementCount, long eliminationCount) {
+        invocations.increment();
+        totalTimeNanos.add(timeNanos);
+        if (placementCount != 0 || eliminationCount != 0) {
+            productiveInvocations.increment();
+            placements.add(placementCount);
+            eliminations.add(eliminationCount);
+        }
+    }
+
+    @Override
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    @Override
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    @Override
+    public long getProductiveInvocations() {
+        return productiveInvocations.sum();
+    }
+
+    /*
+     * Gets the number of invocations that changed nothing.
+     * The counters are read one after the other, so the result is approximate while rules are running.
+     */
+    @Override
+    public long getWastedInvocations() {
+        return Math.max(getInvocations() - getProductiveInvocations(), 0);
+    }
+
+    @Override
+    public long getTotalTimeNanos() {
+        return totalTimeNanos.sum();
+    }
+
+    @Override
+    public double getAverageTimeNanos() {
+        long count = getInvocations();
+        return count == 0 ? 0 : (double) getTotalTimeNanos() / count;
+    }
+
+    @Override
+    public long getPlacements() {
+        return placements.sum();
+    }
+
+    @Override
+    public long getEliminations() {
+        return eliminations.sum();
+    }
+
+    @Override
+    public void reset() {
+        invocations.reset();
+        productiveInvocations.reset();
+        totalTimeNanos.reset();
+        placements.reset();
+        eliminations.reset();
+    }
+}
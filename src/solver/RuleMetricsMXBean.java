@@ -0,0 +1,23 @@
+package solver;
+
+public interface RuleMetricsMXBean {
+    // Metrics of one deduction rule, as shown over JMX (see RuleMetricsRegistry).
+
+    String getRuleName();
+
+    long getInvocations();
+
+    long getProductiveInvocations();
+
+    long getWastedInvocations();
+
+    long getTotalTimeNanos();
+
+    double getAverageTimeNanos();
+
+    long getPlacements();
+
+    long getEliminations();
+
+    void reset();
+}
@@ -0,0 +1,89 @@
+package solver;
+
+import rules.DeductionRule;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class RuleMetricsRegistry {
+    // SINGLETON //
+
+    // Metrics of every deduction rule applied by a SolverContext, keyed by rule.
+    //
+    // The metrics of a rule are created the first time it is applied, and registered
+    // on the platform MBean server as "sudoku:type=RuleMetrics,name=<rule name>",
+    // so a running batch can be watched with JConsole or VisualVM.
+
+    public static final String JMX_DOMAIN = "sudoku";
+
+    private static final RuleMetricsRegistry instance = new RuleMetricsRegistry();
+
+    private final ConcurrentMap<DeductionRule, RuleMetrics> metrics = new ConcurrentHashMap<>();
+
+    private RuleMetricsRegistry() {
+    }
+
+    /*
+     * Returns the instance of RuleMetricsRegistry.
+     */
+    public static RuleMetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /*
+     * Gets the metrics of a rule, creating and registering them if needed.
+     */
+    public RuleMetrics getMetrics(DeductionRule rule) {
+        RuleMetrics ruleMetrics = metrics.get(rule);
+        return ruleMetrics != null ? ruleMetrics : metrics.computeIfAbsent(rule, RuleMetricsRegistry::register);
+    }
+
+    /*
+     * Gets the metrics of all the rules applied so far.
+     */
+    public Collection<RuleMetrics> getAllMetrics() {
+        return metrics.values();
+    }
+
+    /*
+     * Creates the metrics of a rule and registers them over JMX.
+     * The metrics are still recorded if they can't be registered.
+     */
+    private static RuleMetrics register(DeductionRule rule) {
+        RuleMetrics ruleMetrics = new RuleMetrics(rule.getName());
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=RuleMetrics,name=" + ObjectName.quote(rule.getName()));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(ruleMetrics, name);
+            }
+        } catch (JMException | SecurityException e) {
+            // JMX is only used to watch the metrics
+        }
+        return ruleMetrics;
+    }
+
+    /*
+     * Prints a table of the metrics of all the rules applied so far.
+     */
+    public void printSummary(PrintStream out) {
+        out.printf("%-12s %12s %12s %12s %14s %12s %12s%n",
+                "Rule", "Invocations", "Productive", "Wasted", "Time (ms)", "Placements", "Eliminations");
+        for (RuleMetrics ruleMetrics : metrics.values()) {
+            out.printf("%-12s %12d %12d %12d %14.3f %12d %12d%n",
+                    ruleMetrics.getRuleName(),
+                    ruleMetrics.getInvocations(),
+                    ruleMetrics.getProductiveInvocations(),
+                    ruleMetrics.getWastedInvocations(),
+                    ruleMetrics.getTotalTimeNanos() / 1e6,
+                    ruleMetrics.getPlacements(),
+                    ruleMetrics.getEliminations());
+        }
+    }
+}
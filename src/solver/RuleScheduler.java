@@ -0,0 +1,13 @@
+package solver;
+
+public interface RuleScheduler {
+    // Strategy //
+
+    // Decides in which order the automatic solving mode applies the deduction rules.
+
+    /*
+     * Applies the deduction rules of the solver (see SudokuSolver.applyRule) until one of them
+     * makes progress. Returns true if progress was made, false if no rule can make any.
+     */
+    boolean applyRules(SudokuSolver solver);
+}
@@ -0,0 +1,94 @@
+package solver;
+
+import sudoku.grid.CanonicalForm;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SolutionCache {
+    // Bounded LRU cache of solve results, keyed by the canonical form of the grid.
+    //
+    // Results are stored in canonical form, so a grid hits the cache when an equivalent
+    // grid (relabelled, rotated, with rows or columns swapped...) was solved before, and
+    // the stored result is mapped back to its own orientation. Transcripts can't be mapped
+    // that way, so they are only returned for a repeat of the very grid that produced them.
+    // Equivalent grids have the same number of solutions, so solution counts and ratings are shared.
+    //
+    // The map is guarded by its own lock, held only for the lookup or insertion.
+    //
+    // A lookup costs the canonical form of the grid: a miss makes solving a grid about a
+    // third slower, and a hit is 3 to 12 times faster than solving (see CacheBenchmark).
+    // The cache only pays off when a fair share of the grids repeat (from about 20% of hard
+    // grids to 40% of easy ones), so the command-line modes only use one when asked to.
+
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    private final Map<String, Entry> entries;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public SolutionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SolutionCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /*
+     * Gets the result of an equivalent grid mapped back to the orientation of the grid,
+     * or null if there is none.
+     */
+    public SolveResult get(int[] linearGrid, CanonicalForm form) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(form.getKey());
+        }
+
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        String transcript = Arrays.equals(entry.grid, linearGrid) ? entry.transcript : null;
+        return new SolveResult(form.fromCanonical(entry.values), entry.solved, entry.difficulty, transcript, entry.solutionCount,
+                entry.rating);
+    }
+
+    /*
+     * Stores the result of a grid.
+     */
+    public void put(int[] linearGrid, CanonicalForm form, SolveResult result) {
+        Entry entry = new Entry(form.toCanonical(result.getValues()), result.isSolved(), result.getDifficulty(),
+                linearGrid, result.getTranscript(), result.getSolutionCount(), result.getRating());
+        synchronized (entries) {
+            entries.put(form.getKey(), entry);
+        }
+    }
+
+    /*
+     * Gets the number of lookups that found a result.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /*
+     * Gets the number of lookups that found no result.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    private record Entry(int[] values, boolean solved, DifficultyLevel difficulty, int[] grid, String transcript,
+                         int solutionCount, Rating rating) {
+    }
+}
@@ -0,0 +1,217 @@
+package solver;
+
+import rules.DR1;
+import rules.DR2;
+import sudoku.grid.Candidates;
+import sudoku.grid.SudokuGrid;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public final class SolutionCounter {
+    // Counts the solutions of a grid by depth-first search, up to a limit, or lists them lazily.
+    //
+    // Like the BacktrackingSolverState, the search branches on the empty cell with the
+    // fewest candidates and applies the Naked Single and Hidden Single rules after each
+    // guess, but it calls the rules directly: counting is meant to run millions of times
+    // (to check generated puzzles), and must not show up in the RuleMetricsRegistry.
+    //
+    // Counting stops as soon as the limit is reached, so checking that a solution is
+    // unique (a limit of 2) costs at most finding two solutions, however many there are.
+    // Singles can leave large grids (25x25) with a search too deep to finish, so the
+    // search can also be given a budget of branch points, past which the count is UNKNOWN.
+    //
+    // The search works on one copy of the grid, undoing its guesses with checkpoints
+    // (see SudokuGrid.checkpoint) instead of copying the grid at each node.
+
+    public static final int UNKNOWN = -1;
+
+    private SolutionCounter() {
+    }
+
+    /*
+     * Counts the solutions of the grid, stopping as soon as limit solutions were found.
+     * The grid is not modified. A limit of 2 is enough to check that a solution is unique.
+     */
+    public static int countSolutions(SudokuGrid grid, int limit) {
+        return countSolutions(grid, limit, Long.MAX_VALUE);
+    }
+
+    /*
+     * Counts the solutions of the grid like countSolutions, but gives up and returns UNKNOWN
+     * once the search has branched on maxBranches cells without reaching the limit.
+     */
+    public static int countSolutions(SudokuGrid grid, int limit, long maxBranches) {
+        if (limit <= 0) {
+            return 0;
+        }
+        long[] branchesLeft = {maxBranches};
+        int found = count(new SudokuGrid(grid), limit, branchesLeft);
+        return found < limit && branchesLeft[0] < 0 ? UNKNOWN : found;
+    }
+
+    /*
+     * Checks if the grid has exactly one solution.
+     */
+    public static boolean hasUniqueSolution(SudokuGrid grid) {
+        return countSolutions(grid, 2) == 1;
+    }
+
+    /*
+     * Lists the solutions of the grid (values in reading order), searching for each one only
+     * when it is requested. The grid is not modified.
+     */
+    public static Iterator<int[]> iterator(SudokuGrid grid) {
+        return new SolutionIterator(grid);
+    }
+
+    /*
+     * Gets a lazy stream of the solutions of the grid (see iterator), to be cut with limit or findFirst
+     * when the grid may have many solutions.
+     */
+    public static Stream<int[]> solutions(SudokuGrid grid) {
+        Spliterator<int[]> spliterator = Spliterators.spliteratorUnknownSize(iterator(grid),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    private static int count(SudokuGrid grid, int limit, long[] branchesLeft) {
+        propagate(grid);
+        if (grid.hasContradiction()) {
+            return 0;
+        }
+
+        int index = selectCell(grid);
+        if (index == -1) {
+            return 1; // No empty cell left
+        }
+
+        if (--branchesLeft[0] < 0) {
+            return 0; // Out of budget: the caller can't tell the count anymore
+        }
+
+        int found = 0;
+        for (int m = grid.getCandidates(index); m != 0 && found < limit && branchesLeft[0] >= 0; m = Candidates.withoutLowest(m)) {
+            int checkpoint = grid.checkpoint();
+            grid.setValue(index, Candidates.lowest(m));
+            found += count(grid, limit - found, branchesLeft);
+            grid.rollback(checkpoint);
+        }
+        return found;
+    }
+
+    /*
+     * Applies the Naked Single and Hidden Single rules until they make no more progress
+     * or the grid reaches a contradiction.
+     */
+    public static void propagate(SudokuGrid grid) {
+        long previousChanges;
+        do {
+            previousChanges = grid.getChangeCount();
+            DR1.getInstance().applyRule(grid);
+            DR2.getInstance().applyRule(grid);
+        } while (grid.getChangeCount() != previousChanges && !grid.hasContradiction());
+    }
+
+    /*
+     * Selects the empty cell with the fewest candidates, or returns -1 if the grid is full.
+     */
+    public static int selectCell(SudokuGrid grid) {
+        int bestIndex = -1;
+        int bestCount = Integer.MAX_VALUE;
+
+        for (int index = 0; index < grid.getLayout().getCellCount(); index++) {
+            if (grid.getValue(index) == -1) {
+                int count = Candidates.count(grid.getCandidates(index));
+                if (count < bestCount) {
+                    bestIndex = index;
+                    bestCount = count;
+                    if (count <= 2) {
+                        break; // Can't do better than two candidates
+                    }
+                }
+            }
+        }
+        return bestIndex;
+    }
+
+    private static class SolutionIterator implements Iterator<int[]> {
+        // The recursion of count turned inside out: each branch point of the search is kept
+        // on a stack with the values left to try, so the search can pause after each solution.
+        // The grid is brought back to a branch point by rolling back to its checkpoint.
+
+        private final SudokuGrid grid;
+        private final Deque<Branch> branches = new ArrayDeque<>();
+        private int[] next;
+
+        SolutionIterator(SudokuGrid grid) {
+            this.grid = new SudokuGrid(grid);
+            enter();
+        }
+
+        /*
+         * Propagates the grid and either records it as the next solution or pushes its branch point.
+         */
+        private void enter() {
+            propagate(grid);
+            if (grid.hasContradiction()) {
+                return;
+            }
+
+            int index = selectCell(grid);
+            if (index == -1) {
+                next = grid.getValues();
+            } else {
+                branches.push(new Branch(index, grid.getCandidates(index), grid.checkpoint()));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !branches.isEmpty()) {
+                Branch branch = branches.peek();
+                grid.rollback(branch.checkpoint);
+                if (branch.remaining == 0) {
+                    branches.pop();
+                    continue;
+                }
+
+                branch.checkpoint = grid.checkpoint();
+                grid.setValue(branch.index, Candidates.lowest(branch.remaining));
+                branch.remaining = Candidates.withoutLowest(branch.remaining);
+                enter();
+            }
+            return next != null;
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int[] solution = next;
+            next = null;
+            return solution;
+        }
+    }
+
+    private static class Branch {
+        // A cell of the grid, the values not tried in it yet, and the checkpoint opened before trying the current one.
+
+        private final int index;
+        private int remaining;
+        private int checkpoint;
+
+        Branch(int index, int remaining, int checkpoint) {
+            this.index = index;
+            this.remaining = remaining;
+            this.checkpoint = checkpoint;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package solver;
+
+public class SolveResult {
+    // Outcome of solving one grid of a batch (see BatchSolver).
+
+    private final int[] values;
+    private final boolean solved;
+    private final DifficultyLevel difficulty;
+    private final String transcript;
+    private final int solutionCount;
+    private final Rating rating;
+
+    public SolveResult(int[] values, boolean solved, DifficultyLevel difficulty, String transcript) {
+        this(values, solved, difficulty, transcript, -1, null);
+    }
+
+    public SolveResult(int[] values, boolean solved, DifficultyLevel difficulty, String transcript, int solutionCount,
+                       Rating rating) {
+        this.values = values;
+        this.solved = solved;
+        this.difficulty = difficulty;
+        this.transcript = transcript;
+        this.solutionCount = solutionCount;
+        this.rating = rating;
+    }
+
+    /*
+     * Gets the values of the grid after solving, with -1 for the cells left empty.
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    /*
+     * Checks if the grid was solved.
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /*
+     * Gets the difficulty level of the grid.
+     */
+    public DifficultyLevel getDifficulty() {
+        return difficulty;
+    }
+
+    /*
+     * Gets what the solver printed while solving the grid, or null if it was solved quietly.
+     */
+    public String getTranscript() {
+        return transcript;
+    }
+
+    /*
+     * Gets the number of solutions of the grid, up to the limit it was counted with
+     * (see BatchSolver.setSolutionLimit), or -1 if they weren't counted.
+     */
+    public int getSolutionCount() {
+        return solutionCount;
+    }
+
+    /*
+     * Gets the rating of the grid (see BatchSolver.setRatingEngine), or null if it wasn't rated.
+     */
+    public Rating getRating() {
+        return rating;
+    }
+}
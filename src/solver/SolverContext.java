@@ -12,7 +12,20 @@ public class SolverContext {
         this.rule = rule;
     }
 
-    public void execute(SudokuGrid grid) {
+    /*
+     * Applies the rule to the grid, records what it did in the RuleMetricsRegistry
+     * and returns the time it took in nanoseconds.
+     */
+    public long execute(SudokuGrid grid) {
+        long placements = grid.getPlacementCount();
+        long eliminations = grid.getEliminationCount();
+        long start = System.nanoTime();
+
         rule.applyRule(grid);
+
+        long time = System.nanoTime() - start;
+        RuleMetricsRegistry.getInstance().getMetrics(rule)
+                .record(time, grid.getPlacementCount() - placements, grid.getEliminationCount() - eliminations);
+        return time;
     }
 }
@@ -4,10 +4,18 @@ import rules.DR1;
 import rules.DR2;
 import rules.DR3;
 import rules.DeductionRule;
-import sudoku.grid.Cell;
+import rules.Fish;
+import rules.HiddenSubset;
+import rules.NakedSubset;
+import rules.SimpleColoring;
+import rules.XYWing;
+import rules.XYZWing;
+import sudoku.GridSource;
 import sudoku.grid.SudokuGrid;
 import sudoku.Utils;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.*;
 
 public class SudokuSolver {
@@ -15,18 +23,38 @@ public class SudokuSolver {
     private final List<DeductionRule> deductionRules;
     private SolverState state;
     private final SolverContext context;
-    private int dr1Uses = 0;
-    private int dr2Uses = 0;
-    private int dr3Uses = 0;
+    private RuleScheduler scheduler = AdaptiveScheduler.getInstance();
+    private final int[] ruleUses;
+    private int guesses = 0;
+    private PrintStream output = System.out;
+    private boolean quiet = false;
+    private static final String RED = "\u001B[31m";
     private static final String RESET = "\u001B[0m";
 
     public SudokuSolver(SudokuGrid grid) {
+        this(grid, new AutomaticSolverState(true));
+    }
+
+    public SudokuSolver(SudokuGrid grid, SolverState state) {
         this.grid = grid;
-        this.deductionRules = Arrays.asList(DR1.getInstance(), DR2.getInstance(), DR3.getInstance());
-        this.state = new AutomaticSolverState(true);
+        this.deductionRules = getDefaultRules();
+        this.ruleUses = new int[deductionRules.size()];
+        this.state = state;
         this.context = new SolverContext();
     }
 
+    /*
+     * Gets the deduction rules used by default, from the cheapest to the most expensive.
+     */
+    public static List<DeductionRule> getDefaultRules() {
+        return List.of(
+                DR1.getInstance(), DR2.getInstance(), DR3.getInstance(),
+                NakedSubset.getInstance(2), HiddenSubset.getInstance(2), Fish.getInstance(2),
+                NakedSubset.getInstance(3), HiddenSubset.getInstance(3), Fish.getInstance(3),
+                XYWing.getInstance(), XYZWing.getInstance(), SimpleColoring.getInstance(),
+                NakedSubset.getInstance(4), HiddenSubset.getInstance(4), Fish.getInstance(4));
+    }
+
     /*
      * Solves the Sudoku grid.
      */
@@ -69,126 +97,190 @@ public class SudokuSolver {
         return context;
     }
 
+    /*
+     * Gets the scheduler deciding in which order the automatic solving mode applies the rules.
+     */
+    public RuleScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /*
+     * Sets the scheduler deciding in which order the automatic solving mode applies the rules.
+     */
+    public void setScheduler(RuleScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /*
+     * Applies a deduction rule to the grid, counts its use and returns the time it took in nanoseconds.
+     */
+    public long applyRule(DeductionRule rule) {
+        context.setStrategy(rule);
+        long time = context.execute(grid);
+        updateRuleUsage(rule);
+        return time;
+    }
+
+    /*
+     * Gets the stream the solving states print to.
+     */
+    public PrintStream getOutput() {
+        return output;
+    }
+
+    /*
+     * Sets the stream the solving states print to.
+     */
+    public void setOutput(PrintStream output) {
+        this.output = output;
+    }
+
+    /*
+     * Checks if the solving states must not print anything.
+     */
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    /*
+     * Sets whether the solving states must not print anything.
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
     /*
      * Gets the number of times DR1 was used.
      */
     public int getDr1Uses() {
-        return dr1Uses;
+        return getRuleUses(DR1.getInstance());
     }
 
     /*
      * Gets the number of times DR2 was used.
      */
     public int getDr2Uses() {
-        return dr2Uses;
+        return getRuleUses(DR2.getInstance());
     }
 
     /*
      * Gets the number of times DR3 was used.
      */
     public int getDr3Uses() {
-        return dr3Uses;
+        return getRuleUses(DR3.getInstance());
     }
 
     /*
-     * Updates the usage count of a deduction rule.
+     * Gets the number of times a deduction rule was used by this solver.
+     * The work done by the rules across all solvers is in the RuleMetricsRegistry.
      */
-    public void updateRuleUsage(DeductionRule rule) {
-        if (rule instanceof DR1) {
-            dr1Uses++;
-        } else if (rule instanceof DR2) {
-            dr2Uses++;
-        } else if (rule instanceof DR3) {
-            dr3Uses++;
-        }
+    public int getRuleUses(DeductionRule rule) {
+        int index = deductionRules.indexOf(rule);
+        return index == -1 ? 0 : ruleUses[index];
     }
 
     /*
-     * Classifies the difficulty level of the grid.
+     * Gets the number of guesses made by the search.
      */
-    public DifficultyLevel classifyDifficulty() {
-        if (dr1Uses > 0 && dr2Uses == 0 && dr3Uses == 0) {
-            return DifficultyLevel.EASY;
-        }
-        if (dr1Uses > 0 && dr2Uses > 0 && dr3Uses == 0) {
-            return DifficultyLevel.MEDIUM;
-        } else if (dr1Uses > 0 && dr2Uses > 0 && dr3Uses > 0 && getGrid().isSolved()) {
-            return DifficultyLevel.HARD;
-        }
-        return DifficultyLevel.UNSOLVABLE;
+    public int getGuesses() {
+        return guesses;
+    }
+
+    /*
+     * Adds to the number of guesses made by the search.
+     */
+    public void addGuesses(int count) {
+        guesses += count;
     }
 
     /*
-     * Copies the grid.
+     * Updates the usage count of a deduction rule.
      */
-    public Cell[][] copyGrid(Cell[][] grid) {
-        Cell[][] copy = new Cell[9][9];
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                copy[row][col] = new Cell(row, col);
-                copy[row][col].setValue(grid[row][col].getValue());
-                copy[row][col].setCellPossibleValues(grid[row][col].getCellPossibleValues());
-            }
+    public void updateRuleUsage(DeductionRule rule) {
+        int index = deductionRules.indexOf(rule);
+        if (index != -1) {
+            ruleUses[index]++;
         }
-        return copy;
     }
 
     /*
-     * Checks if the grid has changed.
+     * Classifies the difficulty level of the grid.
      */
-    public boolean gridChanged(Cell[][] grid1, Cell[][] grid2) {
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                if ((grid1[row][col].getValue() != grid2[row][col].getValue())
-                        || !grid1[row][col].getCellPossibleValues().equals(grid2[row][col].getCellPossibleValues())) {
-                    return true;
-                }
-            }
+    public DifficultyLevel classifyDifficulty() {
+        if (guesses > 0) {
+            return getGrid().isSolved() ? DifficultyLevel.EXPERT : DifficultyLevel.UNSOLVABLE;
+        }
+        if (!getGrid().isSolved()) {
+            return DifficultyLevel.UNSOLVABLE;
+        }
+        // The cheap rules run in order, so DR2 is only tried once DR1 is stuck, and DR3 once both are
+        if (getDr3Uses() > 0) {
+            return DifficultyLevel.of(DR3.getInstance());
         }
-        return false;
+        return DifficultyLevel.of(getDr2Uses() > 0 ? DR2.getInstance() : DR1.getInstance());
     }
 
     /*
      * Solves all the grids provided in the input file.
+     *
+     * The grids are solved in parallel as they are read, and what each solver printed
+     * is then printed in input order.
      */
     public static void solveAllGrids() {
-        List<int[]> allGrids = Utils.readInput();
+        int[] solvedCount = {0};
+        int[] totalGrids = {0};
+        Map<DifficultyLevel, Integer> difficultyCount = new EnumMap<>(DifficultyLevel.class);
 
-        if (allGrids != null && !allGrids.isEmpty()) {
-            int totalGrids = allGrids.size();
-            int solvedCount = 0;
-            Map<DifficultyLevel, Integer> difficultyCount = new EnumMap<>(DifficultyLevel.class);
+        for (DifficultyLevel level : DifficultyLevel.values()) {
+            difficultyCount.put(level, 0);
+        }
 
-            for (DifficultyLevel level : DifficultyLevel.values()) {
-                difficultyCount.put(level, 0);
-            }
+        try (GridSource source = Utils.readInput()) {
+            BatchSolver batchSolver = new BatchSolver(false, true);
+            batchSolver.solveAll(source, (lineNumber, linearGrid, result) -> {
+                if (result == null) {
+                    System.out.println(RED + "Invalid grid format in file at line " + lineNumber + "." + RESET);
+                    return;
+                }
 
-            for (int i = 0; i < totalGrids; i++) {
-                System.out.println("\n\u001B[35m\u001B[1mSolving grid #" + (i + 1) + ":" + RESET);
+                totalGrids[0]++;
+                System.out.println("\n\u001B[35m\u001B[1mSolving grid #" + totalGrids[0] + ":" + RESET);
 
-                SudokuGrid grid = new SudokuGrid(allGrids.get(i));
-                SudokuSolver solver = new SudokuSolver(grid);
-                boolean solved = solver.solve();
+                boolean solved = result.isSolved();
+                DifficultyLevel difficulty = result.getDifficulty();
 
                 if (solved) {
-                    solvedCount++;
-                    DifficultyLevel difficulty = solver.classifyDifficulty();
+                    System.out.print(result.getTranscript());
+                } else {
+                    // The rules couldn't complete the grid: solve it again here, where the user can help
+                    SudokuSolver solver = new SudokuSolver(new SudokuGrid(linearGrid));
+                    solved = solver.solve();
+                    difficulty = solver.classifyDifficulty();
+                }
+
+                if (solved) {
+                    solvedCount[0]++;
                     difficultyCount.merge(difficulty, 1, Integer::sum); // Increment the count for the difficulty level
                 } else {
                     difficultyCount.merge(DifficultyLevel.UNSOLVABLE, 1, Integer::sum); // Increment the count for unsolvable grids
                 }
-            }
+            });
+        } catch (IOException e) {
+            System.out.println(RED + "Error while reading the grids: " + e.getMessage() + RESET);
+        }
 
-            double percentageSolved = ((double) solvedCount / totalGrids) * 100;
-            System.out.println("\nTotal grids: " + totalGrids);
-            System.out.println("\u001B[36mSolved grids: " + solvedCount + RESET);
+        if (totalGrids[0] > 0) {
+            double percentageSolved = ((double) solvedCount[0] / totalGrids[0]) * 100;
+            System.out.println("\nTotal grids: " + totalGrids[0]);
+            System.out.println("\u001B[36mSolved grids: " + solvedCount[0] + RESET);
             System.out.println("\u001B[32mEasy: " + difficultyCount.get(DifficultyLevel.EASY) + RESET);
             System.out.println("\u001B[33mMedium: " + difficultyCount.get(DifficultyLevel.MEDIUM) + RESET);
             System.out.println("\u001B[35mHard: " + difficultyCount.get(DifficultyLevel.HARD) + RESET);
+            System.out.println("\u001B[34mExpert: " + difficultyCount.get(DifficultyLevel.EXPERT) + RESET);
             System.out.println("\u001B[31mUnsolvable: " + difficultyCount.get(DifficultyLevel.UNSOLVABLE) + RESET);
             System.out.printf("Percentage solved: %.2f%%\n", percentageSolved);
         } else {
             System.out.println("No valid grids were provided.");
         }
     }
-}
+}
\ No newline at end of file
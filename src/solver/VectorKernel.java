@@ -0,0 +1,238 @@
+package solver;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import sudoku.GridSource;
+import sudoku.grid.GridLayout;
+
+import java.util.Arrays;
+
+public final class VectorKernel {
+    // Solves many grids at once with the Naked Single and Hidden Single rules, using the
+    // Vector API (the jdk.incubator.vector module, added with java --add-modules).
+    //
+    // The candidates of a batch of grids are stored as structure-of-arrays planes: one plane
+    // per cell, holding the candidate mask of that cell in every grid of the batch, one grid
+    // per vector lane. Each pass goes over the units once for all the grids, without a branch per grid:
+    // - elimination removes the values of the solved cells of a unit from its other cells,
+    // - in the grids where elimination made no progress, a cell that is the only position of
+    //   a value in a unit is left with that value (hidden single), as the scheduler would only
+    //   try DR2 once DR1 stalls.
+    // The passes repeat until no grid changes. The grids left filled and valid are solved, easy
+    // if they never needed a hidden single and medium otherwise. The others (stalled or
+    // contradictory) are left to the SudokuSolver and its other rules.
+    //
+    // Candidate masks are shorts, so only the grids of up to 16 values are supported.
+    //
+    // The bits changed in each lane are accumulated in small arrays rather than in vector or mask
+    // variables: C2 doesn't keep the vectors carried from one unit to the next in registers, and
+    // allocates them on every operation.
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    private VectorKernel() {
+    }
+
+    /*
+     * Gets the number of grids solved together: the number of lanes of the vectors.
+     */
+    public static int getLaneCount() {
+        return SPECIES.length();
+    }
+
+    /*
+     * Checks if the kernel supports the grids of the layout.
+     */
+    public static boolean supports(GridLayout layout) {
+        return layout.getSize() <= Short.SIZE;
+    }
+
+    /*
+     * Solves the grids in [from, to) and stores the results of the grids the singles complete,
+     * leaving the others null. Invalid grids (GridSource.INVALID_GRID) are skipped.
+     */
+    public static void solve(int[][] grids, int from, int to, SolveResult[] results) {
+        int[] batch = new int[SPECIES.length()];
+        boolean[] batched = new boolean[to - from];
+
+        for (int first = from; first < to; first++) {
+            if (batched[first - from] || grids[first] == GridSource.INVALID_GRID) {
+                continue;
+            }
+            GridLayout layout = GridLayout.forCellCount(grids[first].length);
+            if (layout == null || !supports(layout)) {
+                continue;
+            }
+
+            // Batch the grids of the same layout together
+            int count = 0;
+            for (int i = first; i < to; i++) {
+                if (!batched[i - from] && grids[i] != GridSource.INVALID_GRID && grids[i].length == grids[first].length) {
+                    batched[i - from] = true;
+                    batch[count++] = i;
+                    if (count == batch.length) {
+                        solveBatch(layout, grids, batch, count, results);
+                        count = 0;
+                    }
+                }
+            }
+            if (count > 0) {
+                solveBatch(layout, grids, batch, count, results);
+            }
+        }
+    }
+
+    /*
+     * Solves the grids of the batch, one per lane. The lanes after count are left empty.
+     */
+    private static void solveBatch(GridLayout layout, int[][] grids, int[] batch, int count, SolveResult[] results) {
+        int lanes = SPECIES.length();
+        int cellCount = layout.getCellCount();
+        short full = (short) ((1 << layout.getSize()) - 1);
+
+        short[] planes = new short[cellCount * lanes];
+        for (int lane = 0; lane < count; lane++) {
+            int[] grid = grids[batch[lane]];
+            for (int index = 0; index < cellCount; index++) {
+                planes[index * lanes + lane] = grid[index] > 0 ? (short) (1 << (grid[index] - 1)) : full;
+            }
+        }
+
+        // Bits changed in each lane, by the last pass and since the start
+        short[] eliminated = new short[lanes];
+        short[] hidden = new short[lanes];
+        short[] progress = new short[lanes];
+        short[] hiddenUsed = new short[lanes];
+        while (true) {
+            eliminate(layout, planes, eliminated);
+            applyHiddenSingles(layout, planes, eliminated, hidden);
+            ShortVector changed = load(eliminated).or(load(hidden));
+            if (!changed.compare(VectorOperators.NE, 0).anyTrue()) {
+                break;
+            }
+            accumulate(progress, changed);
+            accumulate(hiddenUsed, load(hidden));
+        }
+
+        // A grid filled from the start is left to the solver, which doesn't rate it easy
+        short[] unsolved = new short[lanes];
+        collectUnsolvedBits(layout, planes, full, unsolved);
+        VectorMask<Short> solved = load(unsolved).compare(VectorOperators.EQ, 0)
+                .and(load(progress).compare(VectorOperators.NE, 0));
+        VectorMask<Short> medium = load(hiddenUsed).compare(VectorOperators.NE, 0);
+        for (int lane = 0; lane < count; lane++) {
+            if (solved.laneIsSet(lane)) {
+                int[] values = new int[cellCount];
+                for (int index = 0; index < cellCount; index++) {
+                    values[index] = Integer.numberOfTrailingZeros(planes[index * lanes + lane]) + 1;
+                }
+                DifficultyLevel difficulty = medium.laneIsSet(lane) ? DifficultyLevel.MEDIUM : DifficultyLevel.EASY;
+                results[batch[lane]] = new SolveResult(values, true, difficulty, null);
+            }
+        }
+    }
+
+    /*
+     * Removes the values of the solved cells of each unit from the other cells of the unit,
+     * and stores the candidates removed in each lane into eliminated.
+     */
+    private static void eliminate(GridLayout layout, short[] planes, short[] eliminated) {
+        int lanes = SPECIES.length();
+        Arrays.fill(eliminated, (short) 0);
+
+        for (int unit = 0; unit < layout.getUnitCount(); unit++) {
+            int[] cells = layout.getUnit(unit);
+            ShortVector solved = ShortVector.zero(SPECIES);
+            for (int index : cells) {
+                ShortVector candidates = ShortVector.fromArray(SPECIES, planes, index * lanes);
+                solved = solved.lanewise(VectorOperators.OR, candidates, isSingle(candidates));
+            }
+
+            for (int index : cells) {
+                ShortVector candidates = ShortVector.fromArray(SPECIES, planes, index * lanes);
+                ShortVector left = candidates.lanewise(VectorOperators.AND_NOT, solved, isSingle(candidates).not());
+                accumulate(eliminated, left.lanewise(VectorOperators.XOR, candidates));
+                left.intoArray(planes, index * lanes);
+            }
+        }
+    }
+
+    /*
+     * Applies the Hidden Single rule to the lanes where elimination removed nothing,
+     * and stores the candidates it removed in each lane into hidden.
+     */
+    private static void applyHiddenSingles(GridLayout layout, short[] planes, short[] eliminated, short[] hidden) {
+        int lanes = SPECIES.length();
+        Arrays.fill(hidden, (short) 0);
+        if (!load(eliminated).compare(VectorOperators.EQ, 0).anyTrue()) {
+            return;
+        }
+
+        for (int unit = 0; unit < layout.getUnitCount(); unit++) {
+            int[] cells = layout.getUnit(unit);
+
+            // Values with a single position in the unit
+            ShortVector once = ShortVector.zero(SPECIES);
+            ShortVector twice = ShortVector.zero(SPECIES);
+            for (int index : cells) {
+                ShortVector candidates = ShortVector.fromArray(SPECIES, planes, index * lanes);
+                twice = twice.or(once.and(candidates));
+                once = once.or(candidates);
+            }
+            ShortVector unique = once.lanewise(VectorOperators.AND_NOT, twice);
+            VectorMask<Short> active = load(eliminated).compare(VectorOperators.EQ, 0);
+            if (!unique.compare(VectorOperators.NE, 0).and(active).anyTrue()) {
+                continue;
+            }
+
+            for (int index : cells) {
+                ShortVector candidates = ShortVector.fromArray(SPECIES, planes, index * lanes);
+                ShortVector single = candidates.and(unique);
+                VectorMask<Short> found = single.compare(VectorOperators.NE, 0).and(active);
+                if (found.anyTrue()) {
+                    ShortVector left = candidates.blend(single, found);
+                    accumulate(hidden, left.lanewise(VectorOperators.XOR, candidates));
+                    left.intoArray(planes, index * lanes);
+                }
+            }
+        }
+    }
+
+    /*
+     * Stores into unsolved, for each lane, bits that are only all clear when the grid is filled and
+     * valid: the candidates beyond the first of each cell, and the values missing from each unit.
+     */
+    private static void collectUnsolvedBits(GridLayout layout, short[] planes, short full, short[] unsolved) {
+        int lanes = SPECIES.length();
+
+        for (int unit = 0; unit < layout.getUnitCount(); unit++) {
+            ShortVector values = ShortVector.zero(SPECIES);
+            for (int index : layout.getUnit(unit)) {
+                ShortVector candidates = ShortVector.fromArray(SPECIES, planes, index * lanes);
+                accumulate(unsolved, candidates.and(candidates.sub((short) 1)));
+                values = values.or(candidates);
+            }
+            accumulate(unsolved, values.lanewise(VectorOperators.XOR, full));
+        }
+    }
+
+    /*
+     * Gets the lanes with at most one candidate.
+     */
+    private static VectorMask<Short> isSingle(ShortVector candidates) {
+        return candidates.and(candidates.sub((short) 1)).compare(VectorOperators.EQ, 0);
+    }
+
+    private static ShortVector load(short[] bits) {
+        return ShortVector.fromArray(SPECIES, bits, 0);
+    }
+
+    /*
+     * Adds bits to the bits of each lane kept in the array.
+     */
+    private static void accumulate(short[] bits, ShortVector more) {
+        load(bits).or(more).intoArray(bits, 0);
+    }
+}
@@ -0,0 +1,254 @@
+package sudoku;
+
+import sudoku.grid.GridLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class BinaryCorpus implements GridSource {
+    // Grids stored in the binary corpus format, read through memory mapping.
+    //
+    // The file starts with a header of HEADER_SIZE bytes (big-endian):
+    //   0  magic "SDKB"               8  record size in bytes    16  record count
+    //   4  format version (short)    12  flags (INDEXED)         24  index offset (0 if none)
+    //   6  box size (byte)
+    //   7  bits per cell (byte): 4 up to 9x9 grids, 8 for larger grids
+    // followed by fixed-size records, one per grid: the values of the cells in reading
+    // order, 0 for empty cells, two cells per byte (high nibble first) with 4 bits per cell.
+    // The optional index follows the records: the input line number of each grid (a long),
+    // so results can be matched with the text file the grids were converted from.
+    //
+    // Records are read from the mapped file: random access costs no read call and nothing is
+    // parsed. getValue reads a cell in place and readGrid decodes a grid into the caller's array,
+    // so a reused array copies nothing else; nextGrid returns a new array for each grid, since
+    // the callers of a GridSource keep the grids it returns. A mapped buffer can't exceed 2 GB,
+    // so large files are mapped as several segments holding whole records.
+
+    public static final int HEADER_SIZE = 32;
+    public static final int VERSION = 1;
+    public static final int INDEXED = 1;
+
+    static final byte[] MAGIC = {'S', 'D', 'K', 'B'};
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final GridLayout layout;
+    private final int bitsPerCell;
+    private final int recordSize;
+    private final long recordCount;
+    private final long recordsPerSegment;
+    private final MappedByteBuffer[] segments;
+    private final MappedByteBuffer[] indexSegments;
+    private long next;
+
+    public BinaryCorpus(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) != -1) {
+                // Read the whole header
+            }
+            if (header.hasRemaining() || !hasMagic(header.array())) {
+                throw new IOException("Not a binary corpus: " + path);
+            }
+            header.flip();
+
+            int version = header.getShort(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary corpus version: " + version);
+            }
+            int boxSize = header.get(6);
+            if (boxSize < GridLayout.MIN_BOX_SIZE || boxSize > GridLayout.MAX_BOX_SIZE) {
+                throw new IOException("Unsupported box size in binary corpus: " + boxSize);
+            }
+            this.layout = GridLayout.of(boxSize);
+            this.bitsPerCell = header.get(7);
+            this.recordSize = header.getInt(8);
+            if (bitsPerCell != bitsPerCell(layout) || recordSize != recordSize(layout)) {
+                throw new IOException("Invalid record layout in binary corpus: " + path);
+            }
+            int flags = header.getInt(12);
+            this.recordCount = header.getLong(16);
+            long indexOffset = header.getLong(24);
+
+            // Bound the counts by dividing the sizes, so a corrupt header can't overflow the products
+            long size = channel.size();
+            if (recordCount < 0 || recordCount > (size - HEADER_SIZE) / recordSize) {
+                throw new IOException("Truncated binary corpus: " + path);
+            }
+            long recordsEnd = HEADER_SIZE + recordCount * recordSize;
+            if ((flags & INDEXED) != 0
+                    && (indexOffset < recordsEnd || indexOffset > size || recordCount > (size - indexOffset) / Long.BYTES)) {
+                throw new IOException("Truncated binary corpus: " + path);
+            }
+
+            this.recordsPerSegment = SEGMENT_SIZE / recordSize;
+            this.segments = map(HEADER_SIZE, recordCount, recordsPerSegment, recordSize);
+            this.indexSegments = (flags & INDEXED) == 0 ? null
+                    : map(indexOffset, recordCount, SEGMENT_SIZE / Long.BYTES, Long.BYTES);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /*
+     * Maps count entries of entrySize bytes starting at offset, as segments of entriesPerSegment entries.
+     */
+    private MappedByteBuffer[] map(long offset, long count, long entriesPerSegment, int entrySize) throws IOException {
+        MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((count + entriesPerSegment - 1) / entriesPerSegment)];
+        for (int i = 0; i < mapped.length; i++) {
+            long first = i * entriesPerSegment;
+            long size = Math.min(entriesPerSegment, count - first) * entrySize;
+            mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * entrySize, size);
+        }
+        return mapped;
+    }
+
+    /*
+     * Checks if the file starts like a binary corpus (the text formats never do).
+     * Only regular files are checked: a pipe can't be read twice, nor mapped,
+     * so it is always taken for text.
+     */
+    public static boolean isBinaryCorpus(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return hasMagic(in.readNBytes(MAGIC.length));
+        }
+    }
+
+    private static boolean hasMagic(byte[] bytes) {
+        return bytes.length >= MAGIC.length && Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /*
+     * Gets the number of bits used for each cell by the grids of the layout.
+     */
+    static int bitsPerCell(GridLayout layout) {
+        return layout.getSize() < 16 ? 4 : 8;
+    }
+
+    /*
+     * Gets the number of bytes of the records of the grids of the layout.
+     */
+    static int recordSize(GridLayout layout) {
+        return (layout.getCellCount() * bitsPerCell(layout) + 7) / 8;
+    }
+
+    /*
+     * Gets the layout of all the grids of the corpus.
+     */
+    public GridLayout getLayout() {
+        return layout;
+    }
+
+    /*
+     * Gets the number of grids of the corpus.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /*
+     * Checks if the corpus holds the input line number of each grid.
+     */
+    public boolean isIndexed() {
+        return indexSegments != null;
+    }
+
+    /*
+     * Gets the value of a cell of a grid, or 0 if it is empty, straight from the mapped file.
+     */
+    public int getValue(long record, int index) {
+        checkRecord(record);
+        ByteBuffer segment = segments[(int) (record / recordsPerSegment)];
+        int offset = (int) (record % recordsPerSegment) * recordSize;
+        if (bitsPerCell == 8) {
+            return segment.get(offset + index) & 0xFF;
+        }
+        int cells = segment.get(offset + index / 2);
+        return (index % 2 == 0 ? cells >> 4 : cells) & 0xF;
+    }
+
+    /*
+     * Reads the values of a grid (0 for empty cells) into values, which must hold a value per cell.
+     */
+    public void readGrid(long record, int[] values) {
+        checkRecord(record);
+        ByteBuffer segment = segments[(int) (record / recordsPerSegment)];
+        int offset = (int) (record % recordsPerSegment) * recordSize;
+        int cellCount = layout.getCellCount();
+
+        if (bitsPerCell == 8) {
+            for (int index = 0; index < cellCount; index++) {
+                values[index] = segment.get(offset + index) & 0xFF;
+            }
+            return;
+        }
+        for (int index = 0; index < cellCount; index += 2) {
+            int cells = segment.get(offset + index / 2);
+            values[index] = (cells >> 4) & 0xF;
+            if (index + 1 < cellCount) {
+                values[index + 1] = cells & 0xF;
+            }
+        }
+    }
+
+    /*
+     * Gets the input line number of a grid: from the index if there is one, else its position (starting at 1).
+     */
+    public long getLineNumber(long record) {
+        checkRecord(record);
+        if (indexSegments == null) {
+            return record + 1;
+        }
+        long perSegment = SEGMENT_SIZE / Long.BYTES;
+        return indexSegments[(int) (record / perSegment)].getLong((int) (record % perSegment) * Long.BYTES);
+    }
+
+    private void checkRecord(long record) {
+        if (record < 0 || record >= recordCount) {
+            throw new IndexOutOfBoundsException("No record " + record + " in a corpus of " + recordCount + " grids.");
+        }
+    }
+
+    /*
+     * Gets the next grid in a new array, or null when there are no grids left.
+     * To read the grids without allocating, use readGrid with an array of your own.
+     */
+    @Override
+    public int[] nextGrid() {
+        if (next == recordCount) {
+            return null;
+        }
+        int[] values = new int[layout.getCellCount()];
+        readGrid(next++, values);
+        return values;
+    }
+
+    /*
+     * Gets the input line number of the last grid returned by nextGrid.
+     */
+    @Override
+    public long getLineNumber() {
+        return getLineNumber(next - 1);
+    }
+
+    /*
+     * Closes the file. The mapping itself is released once the buffers are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,177 @@
+package sudoku;
+
+import sudoku.grid.GridLayout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class BinaryCorpusWriter implements AutoCloseable {
+    // Writes grids (puzzles or solutions) in the binary corpus format (see BinaryCorpus).
+    //
+    // Records are packed into a large buffer and written sequentially, as the number of grids
+    // isn't known in advance. The header is written last, once the records are counted; until
+    // then the file has no magic and isn't taken for a corpus. With an index, the line numbers
+    // go to a temporary file, appended after the records on close.
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final GridLayout layout;
+    private final int bitsPerCell;
+    private final ByteBuffer buffer;
+    private final FileChannel indexChannel;
+    private final ByteBuffer indexBuffer;
+    private long recordCount;
+    private long position = BinaryCorpus.HEADER_SIZE;
+
+    /*
+     * Creates (or replaces) the file. With indexed, the input line number of each grid is kept.
+     */
+    public BinaryCorpusWriter(Path path, GridLayout layout, boolean indexed) throws IOException {
+        this.layout = layout;
+        this.bitsPerCell = BinaryCorpus.bitsPerCell(layout);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE - BUFFER_SIZE % BinaryCorpus.recordSize(layout));
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        if (indexed) {
+            try {
+                Path indexFile = Files.createTempFile(path.toAbsolutePath().getParent(), "index", ".tmp");
+                this.indexChannel = FileChannel.open(indexFile, StandardOpenOption.WRITE, StandardOpenOption.READ,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            this.indexBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        } else {
+            this.indexChannel = null;
+            this.indexBuffer = null;
+        }
+    }
+
+    /*
+     * Gets the layout of the grids of the file.
+     */
+    public GridLayout getLayout() {
+        return layout;
+    }
+
+    /*
+     * Writes a grid, with 0 or -1 for empty cells, as the grid of the given input line.
+     * The line number is only kept if the file is indexed.
+     */
+    public void write(int[] values, long lineNumber) throws IOException {
+        if (values.length != layout.getCellCount()) {
+            throw new IllegalArgumentException("Expected " + layout.getCellCount() + " values, got " + values.length + ".");
+        }
+        if (buffer.remaining() < BinaryCorpus.recordSize(layout)) {
+            flush();
+        }
+
+        if (bitsPerCell == 8) {
+            for (int value : values) {
+                buffer.put((byte) Math.max(value, 0));
+            }
+        } else {
+            for (int index = 0; index < values.length; index += 2) {
+                int high = Math.max(values[index], 0);
+                int low = index + 1 < values.length ? Math.max(values[index + 1], 0) : 0;
+                buffer.put((byte) (high << 4 | low));
+            }
+        }
+
+        if (indexChannel != null) {
+            if (!indexBuffer.hasRemaining()) {
+                writeFully(indexChannel, indexBuffer.flip());
+                indexBuffer.clear();
+            }
+            indexBuffer.putLong(lineNumber);
+        }
+        recordCount++;
+    }
+
+    /*
+     * Writes the buffered records to the file.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        position += writeFully(channel, buffer, position);
+        buffer.clear();
+    }
+
+    /*
+     * Writes the remaining records and the index, then the header, and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+
+            long indexOffset = 0;
+            if (indexChannel != null) {
+                writeFully(indexChannel, indexBuffer.flip());
+                indexOffset = position;
+                long size = indexChannel.size();
+                for (long copied = 0; copied < size; ) {
+                    copied += indexChannel.transferTo(copied, size - copied, channel.position(indexOffset + copied));
+                }
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(BinaryCorpus.HEADER_SIZE)
+                    .put(BinaryCorpus.MAGIC)
+                    .putShort((short) BinaryCorpus.VERSION)
+                    .put((byte) layout.getBoxSize())
+                    .put((byte) bitsPerCell)
+                    .putInt(BinaryCorpus.recordSize(layout))
+                    .putInt(indexChannel != null ? BinaryCorpus.INDEXED : 0)
+                    .putLong(recordCount)
+                    .putLong(indexOffset);
+            writeFully(channel, header.flip(), 0);
+        } finally {
+            closeChannels();
+        }
+    }
+
+    /*
+     * Closes the file without writing the header, leaving it as an invalid corpus.
+     */
+    public void abort() throws IOException {
+        try {
+            channel.truncate(0);
+        } finally {
+            closeChannels();
+        }
+    }
+
+    /*
+     * Closes the file and the temporary index file, which deletes it.
+     */
+    private void closeChannels() throws IOException {
+        try {
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,157 @@
+package sudoku;
+
+import sudoku.grid.GridLayout;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+public class CorpusConverter {
+    // Converts grid files between the text formats and the binary corpus format (see BinaryCorpus),
+    // driven by command-line arguments.
+    //
+    // Text files are converted to binary, so large corpora solved again and again are only parsed
+    // once. A binary corpus holds grids of a single size: the first valid grid sets it, and the
+    // lines holding invalid grids or grids of another size are skipped (and counted). Binary
+    // corpora are converted back to text, with blank lines in place of the skipped lines if the
+    // corpus is indexed.
+
+    public static final String USAGE = "Usage: java Main convert --input <file> --output <file> [--index] [--format csv|compact]";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private CorpusConverter() {
+    }
+
+    /*
+     * Runs the converter with the command-line arguments (following "convert") and returns the exit
+     * status: 0 on success, 1 if the grids couldn't be read or written, 2 if the arguments are invalid.
+     */
+    public static int run(String[] args) {
+        Path input = null;
+        Path output = null;
+        boolean indexed = false;
+        OutputFormat format = OutputFormat.CSV;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--input", "-i" -> input = Path.of(argumentValue(args, ++i));
+                    case "--output", "-o" -> output = Path.of(argumentValue(args, ++i));
+                    case "--index" -> indexed = true;
+                    case "--format", "-f" -> {
+                        format = OutputFormat.fromName(argumentValue(args, ++i));
+                        if (format == null) {
+                            throw new IllegalArgumentException("Unknown output format: " + args[i]);
+                        }
+                    }
+                    case "--help", "-h" -> {
+                        System.out.println(USAGE);
+                        return 0;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            if (input == null || output == null) {
+                throw new IllegalArgumentException("Missing input or output file.");
+            }
+        } catch (IllegalArgumentException e) { // Also covers InvalidPathException
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            if (BinaryCorpus.isBinaryCorpus(input)) {
+                toText(input, output, format);
+            } else {
+                long skipped = toBinary(input, output, indexed);
+                if (skipped > 0) {
+                    System.err.println("Skipped " + skipped + " lines without a valid grid of the size of the first one.");
+                }
+            }
+            return 0;
+        } catch (NoSuchFileException e) {
+            System.err.println("File not found: " + e.getFile());
+            return 1;
+        } catch (IOException e) {
+            System.err.println("Error while converting the grids: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /*
+     * Gets the value following an argument.
+     */
+    private static String argumentValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1] + ".");
+        }
+        return args[index];
+    }
+
+    /*
+     * Converts a text file to a binary corpus and returns the number of lines skipped.
+     */
+    public static long toBinary(Path input, Path output, boolean indexed) throws IOException {
+        long skipped = 0;
+        BinaryCorpusWriter writer = null;
+
+        try (GridReader reader = new GridReader(input)) {
+            int[] grid;
+            while ((grid = reader.nextGrid()) != null) {
+                if (writer == null && grid != GridSource.INVALID_GRID) {
+                    writer = new BinaryCorpusWriter(output, GridLayout.forCellCount(grid.length), indexed);
+                }
+                if (writer == null || grid.length != writer.getLayout().getCellCount()) {
+                    skipped++;
+                } else {
+                    writer.write(grid, reader.getLineNumber());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (writer != null) {
+                writer.abort();
+            }
+            throw e;
+        }
+
+        if (writer == null) {
+            // No valid grid: still write an empty corpus
+            writer = new BinaryCorpusWriter(output, GridLayout.STANDARD, indexed);
+        }
+        writer.close();
+        return skipped;
+    }
+
+    /*
+     * Converts a binary corpus to a text file, one grid per line.
+     */
+    public static void toText(Path input, Path output, OutputFormat format) throws IOException {
+        try (BinaryCorpus corpus = new BinaryCorpus(input);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(output),
+                     StandardCharsets.US_ASCII), BUFFER_SIZE)) {
+            int[] values = new int[corpus.getLayout().getCellCount()];
+            char[] line = new char[format.maxLineLength(values.length) + 1];
+            long linesWritten = 0;
+
+            for (long record = 0; record < corpus.getRecordCount(); record++) {
+                // Keep the lines aligned with the lines the grids were converted from
+                for (long lineNumber = corpus.getLineNumber(record); linesWritten < lineNumber - 1; linesWritten++) {
+                    writer.write('\n');
+                }
+
+                corpus.readGrid(record, values);
+                int length = format.format(values, line);
+                line[length++] = '\n';
+                writer.write(line, 0, length);
+                linesWritten++;
+            }
+        }
+    }
+}
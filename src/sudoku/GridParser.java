@@ -0,0 +1,156 @@
+package sudoku;
+
+import sudoku.grid.GridLayout;
+
+public final class GridParser {
+    // Parses grid values straight from bytes into a caller-provided array, without allocating.
+    //
+    // Two formats are accepted:
+    // - integers from -1 to 25 separated by whitespace, commas or semicolons,
+    //   with 0 or -1 for empty cells (e.g. "5,3,0,0,7,0,-1,-1,-1")
+    // - the compact format: one character per cell, digits 1 to 9, then letters A to P
+    //   (in either case) for 10 to 25, and '.' or '0' for empty cells (e.g. "53..7....")
+    // A line holding no separator and no '-' is read in the compact format.
+    //
+    // The number of values gives the order of the grid (81 values for 9x9, 256 for 16x16...),
+    // see isGrid.
+
+    public static final int INVALID = -1;
+
+    private GridParser() {
+    }
+
+    /*
+     * Parses the values of bytes[from, to) into values.
+     * Returns the number of values parsed, or INVALID if the bytes are malformed
+     * or hold more values than the array can take.
+     */
+    public static int parse(byte[] bytes, int from, int to, int[] values) {
+        // Ignore the surrounding whitespace
+        while (from < to && isSeparator(bytes[from])) {
+            from++;
+        }
+        while (to > from && isSeparator(bytes[to - 1])) {
+            to--;
+        }
+
+        return isCompact(bytes, from, to) ? parseCompact(bytes, from, to, values) : parseIntegers(bytes, from, to, values);
+    }
+
+    /*
+     * Checks if bytes[from, to) is written in the compact format.
+     */
+    private static boolean isCompact(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isSeparator(bytes[i]) || bytes[i] == '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Parses one value per character.
+     */
+    private static int parseCompact(byte[] bytes, int from, int to, int[] values) {
+        int count = to - from;
+        if (count > values.length) {
+            return INVALID;
+        }
+
+        for (int i = 0; i < count; i++) {
+            byte b = bytes[from + i];
+            int value = compactValue(b);
+            if (value == INVALID) {
+                return INVALID;
+            }
+            values[i] = value;
+        }
+        return count;
+    }
+
+    /*
+     * Gets the value of a character of the compact format, or INVALID.
+     */
+    private static int compactValue(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b == '.') {
+            return 0;
+        }
+        int letter = (b | 0x20) - 'a'; // Lower case
+        return letter >= 0 && letter < GridLayout.MAX_SIZE - 9 ? 10 + letter : INVALID;
+    }
+
+    /*
+     * Parses integers from -1 to 25 separated by whitespace, commas or semicolons.
+     */
+    private static int parseIntegers(byte[] bytes, int from, int to, int[] values) {
+        int count = 0;
+        int i = from;
+
+        while (i < to) {
+            if (isSeparator(bytes[i])) {
+                i++;
+                continue;
+            }
+
+            boolean negative = bytes[i] == '-';
+            if (negative) {
+                i++;
+            }
+
+            int start = i;
+            int value = 0;
+            while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+                value = value * 10 + (bytes[i] - '0');
+                if (value > GridLayout.MAX_SIZE) {
+                    return INVALID;
+                }
+                i++;
+            }
+
+            // A token must hold digits only and end at a separator
+            if (i == start || (i < to && !isSeparator(bytes[i]))) {
+                return INVALID;
+            }
+            if (negative) {
+                value = -value;
+                if (value < -1) {
+                    return INVALID;
+                }
+            }
+            if (count == values.length) {
+                return INVALID;
+            }
+            values[count++] = value;
+        }
+
+        return count;
+    }
+
+    /*
+     * Checks if the first count values form a grid: count is the number of cells
+     * of a supported order, and no value is greater than the order.
+     */
+    public static boolean isGrid(int[] values, int count) {
+        GridLayout layout = GridLayout.forCellCount(count);
+        if (layout == null) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (values[i] > layout.getSize()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Checks if the byte separates two values.
+     */
+    private static boolean isSeparator(byte b) {
+        return b == ',' || b == ';' || b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f';
+    }
+}
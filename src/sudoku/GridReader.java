@@ -0,0 +1,178 @@
+package sudoku;
+
+import sudoku.grid.GridLayout;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class GridReader implements GridSource {
+    // Streams the grids of a file, one grid per line.
+    //
+    // A background thread reads and parses the lines while the grids already read
+    // are being solved. The two are connected by a bounded queue: the reader waits
+    // when the queue is full, so memory use doesn't grow with the size of the file.
+    //
+    // Lines are scanned in a byte buffer and parsed by GridParser into a reused array;
+    // only the grids handed over to the queue are allocated.
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Entry END_OF_FILE = new Entry(-1, null);
+
+    private final FileChannel channel;
+    private final BlockingQueue<Entry> queue;
+    private final int[] parsedGrid = new int[GridLayout.MAX_CELL_COUNT];
+    private final Thread thread;
+    private volatile IOException failure;
+    private long lineNumber;
+    private boolean finished;
+
+    public GridReader(Path path) throws IOException {
+        this(path, DEFAULT_CAPACITY);
+    }
+
+    public GridReader(Path path, int capacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::readAll, "grid-reader");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /*
+     * Reads all the lines of the file into the queue, then marks the end of the file.
+     */
+    private void readAll() {
+        try (channel) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long lineCount = 0;
+            int start = 0;
+            int end = 0;
+            boolean lineTooLong = false;
+
+            while (true) {
+                // Handle the complete lines in the buffer
+                for (int i = start; i < end; i++) {
+                    if (bytes[i] == '\n') {
+                        lineCount++;
+                        if (lineTooLong) {
+                            queue.put(new Entry(lineCount, INVALID_GRID));
+                            lineTooLong = false;
+                        } else {
+                            handleLine(bytes, start, i, lineCount);
+                        }
+                        start = i + 1;
+                    }
+                }
+
+                // Move the incomplete line to the start of the buffer
+                System.arraycopy(bytes, start, bytes, 0, end - start);
+                end -= start;
+                start = 0;
+                if (end == bytes.length) {
+                    // No grid is that long: drop the line up to its end
+                    lineTooLong = true;
+                    end = 0;
+                }
+
+                buffer.limit(bytes.length).position(end);
+                int read = channel.read(buffer);
+                if (read == -1) {
+                    break;
+                }
+                end += read;
+            }
+
+            // Handle the last line if the file doesn't end with a line break
+            if (end > 0 || lineTooLong) {
+                lineCount++;
+                if (lineTooLong) {
+                    queue.put(new Entry(lineCount, INVALID_GRID));
+                } else {
+                    handleLine(bytes, 0, end, lineCount);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return; // Closed before the end of the file
+        }
+
+        try {
+            queue.put(END_OF_FILE);
+        } catch (InterruptedException e) {
+            // Closed before the end of the file was reached by the consumer
+        }
+    }
+
+    /*
+     * Parses the line bytes[from, to) and queues its grid, skipping blank lines.
+     */
+    private void handleLine(byte[] bytes, int from, int to, long lineNumber) throws InterruptedException {
+        int count = GridParser.parse(bytes, from, to, parsedGrid);
+        if (count == 0) {
+            return;
+        }
+
+        int[] grid = GridParser.isGrid(parsedGrid, count) ? Arrays.copyOf(parsedGrid, count) : INVALID_GRID;
+        queue.put(new Entry(lineNumber, grid));
+    }
+
+    /*
+     * Gets the next grid, waiting for the background thread to read it if needed.
+     */
+    @Override
+    public int[] nextGrid() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        Entry entry;
+        try {
+            entry = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the next grid.");
+        }
+
+        if (entry == END_OF_FILE) {
+            finished = true;
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+
+        lineNumber = entry.lineNumber();
+        return entry.values();
+    }
+
+    /*
+     * Gets the line number of the last grid returned by nextGrid.
+     */
+    @Override
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /*
+     * Stops the background thread.
+     */
+    @Override
+    public void close() {
+        finished = true;
+        thread.interrupt();
+    }
+
+    private record Entry(long lineNumber, int[] values) {
+    }
+}
@@ -0,0 +1,24 @@
+package sudoku;
+
+import java.io.IOException;
+
+public interface GridSource extends AutoCloseable {
+    // Iterator //
+
+    // Returned for an input line that doesn't hold a valid grid, so that
+    // consumers can keep their output aligned with the input lines.
+    int[] INVALID_GRID = new int[0];
+
+    /*
+     * Gets the next grid, INVALID_GRID for an invalid input line, or null when there are no grids left.
+     */
+    int[] nextGrid() throws IOException;
+
+    /*
+     * Gets the input line number of the last grid returned by nextGrid.
+     */
+    long getLineNumber();
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,34 @@
+package sudoku;
+
+import java.util.List;
+
+public class ListGridSource implements GridSource {
+    // Grids already held in memory, e.g. entered by the user.
+
+    private final List<int[]> grids;
+    private int next;
+
+    public ListGridSource(List<int[]> grids) {
+        this.grids = grids;
+    }
+
+    /*
+     * Gets the next grid, or null when there are no grids left.
+     */
+    @Override
+    public int[] nextGrid() {
+        return next < grids.size() ? grids.get(next++) : null;
+    }
+
+    /*
+     * Gets the position (starting at 1) of the last grid returned by nextGrid.
+     */
+    @Override
+    public long getLineNumber() {
+        return next;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,50 @@
+package sudoku;
+
+public enum OutputFormat {
+    // Formats of the solution lines written in headless mode.
+    // Empty cells are written as 0 in CSV and as '.' in compact format, so both can be read back as input.
+
+    CSV, // One integer per cell separated by commas
+    COMPACT; // One character per cell: digits, then letters from A for 10 (see GridParser)
+
+    /*
+     * Gets the length of the longest line written for a grid of cellCount cells.
+     */
+    public int maxLineLength(int cellCount) {
+        return this == CSV ? 3 * cellCount - 1 : cellCount;
+    }
+
+    /*
+     * Writes the values of the grid into line and returns the number of characters written.
+     */
+    public int format(int[] values, char[] line) {
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            int value = values[i];
+            if (this == CSV) {
+                if (i > 0) {
+                    line[length++] = ',';
+                }
+                if (value >= 10) {
+                    line[length++] = (char) ('0' + value / 10);
+                }
+                line[length++] = (char) ('0' + Math.max(value, 0) % 10);
+            } else {
+                line[length++] = value <= 0 ? '.' : value < 10 ? (char) ('0' + value) : (char) ('A' + value - 10);
+            }
+        }
+        return length;
+    }
+
+    /*
+     * Gets the format with the given name, ignoring case, or null if there is none.
+     */
+    public static OutputFormat fromName(String name) {
+        for (OutputFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -1,8 +1,13 @@
 package sudoku;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import sudoku.grid.GridLayout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -13,8 +18,6 @@ public class Utils {
     private static final String RED = "\u001B[31m";
     private static final String RESET = "\u001B[0m";
 
-    private static final String SEPARATOR = "[\\s,;]+";
-
     private Utils() {
     }
 
@@ -36,9 +39,10 @@ public class Utils {
         System.out.println(TURQUOISE + "Instructions:" + RESET);
         System.out.println("Use 0 or -1 to represent empty cells.");
         System.out.println("You can enter the grid in one of the following ways, using commas to separate integers:");
-        System.out.println("1. As a single line of 81 integers.");
+        System.out.println("1. As a single line of 81 integers, or of 81 characters with '.' or 0 for empty cells.");
         System.out.println("2. Row by row, with 9 integers per row.");
         System.out.println("3. From a file, with each grid on a separate line.");
+        System.out.println("16x16 and 25x25 grids are entered the same way, with 16 or 25 values per row.");
         System.out.println("Type \"quit\" to exit.\n");
     }
 
@@ -57,16 +61,17 @@ public class Utils {
      *
      * Allows the user to enter the entire grid, row by row, or read from a file.
      * Based on the user's choice, it calls the appropriate method to read the input.
+     * Grids read from a file are streamed as they are parsed (see GridReader).
      */
-    public static List<int[]> readInput() {
+    public static GridSource readInput() {
         Scanner scanner = new Scanner(System.in);
         String choice = getUserChoice(scanner);
 
         return switch (choice) {
-            case "E" -> readEntireGrid();
-            case "R" -> readRowByRow();
+            case "E" -> new ListGridSource(readEntireGrid());
+            case "R" -> new ListGridSource(readRowByRow());
             case "F" -> readFromFile();
-            default -> new ArrayList<>();
+            default -> new ListGridSource(new ArrayList<>());
         };
     }
 
@@ -93,11 +98,15 @@ public class Utils {
     private static ArrayList<int[]> readRowByRow() {
         ArrayList<int[]> grids = new ArrayList<>();
         Scanner scanner = new Scanner(System.in);
-        int[] linearGrid = new int[81];
-
-        for (int row = 0; row < 9; row++) {
-            int[] rowData = getValidRowData(scanner, row);
-            System.arraycopy(rowData, 0, linearGrid, row * 9, 9);
+        // The first row gives the order of the grid
+        int[] firstRow = getValidRowData(scanner, 0, -1);
+        int size = firstRow.length;
+        int[] linearGrid = new int[size * size];
+        System.arraycopy(firstRow, 0, linearGrid, 0, size);
+
+        for (int row = 1; row < size; row++) {
+            int[] rowData = getValidRowData(scanner, row, size);
+            System.arraycopy(rowData, 0, linearGrid, row * size, size);
         }
 
         grids.add(linearGrid);
@@ -105,23 +114,41 @@ public class Utils {
     }
 
     /*
-     * Checks if the row data entered by the user is valid.
+     * Checks if the row data entered by the user is valid: size values from -1 to size,
+     * or for the first row (size -1), the values of a row of any supported order.
      * If not, prompts the user to enter the row again.
      */
-    private static int[] getValidRowData(Scanner scanner, int row) {
+    private static int[] getValidRowData(Scanner scanner, int row, int size) {
         while (true) {
             System.out.print("Enter row " + (row + 1) + ": ");
             String input = scanner.nextLine().trim();
             validateQuitCommand(input);
 
-            // Split the input by any whitespace character, comma, or semicolon
-            String[] values = input.split(SEPARATOR);
-            if (values.length == 9 && isValidInput(values)) {
-                return convertToIntArray(values);
+            int[] rowData = parseValues(input);
+            if (rowData != null && isValidRow(rowData, size)) {
+                return rowData;
+            } else if (size == -1) {
+                System.out.println(RED + "Invalid input. Please enter 9 integers between -1 and 9 (or 16 or 25 for larger grids)." + RESET);
             } else {
-                System.out.println(RED + "Invalid input. Please enter 9 integers between -1 and 9." + RESET);
+                System.out.println(RED + "Invalid input. Please enter " + size + " integers between -1 and " + size + "." + RESET);
+            }
+        }
+    }
+
+    /*
+     * Checks if the values form a row of a grid of the given order (any supported order if size is -1).
+     */
+    private static boolean isValidRow(int[] rowData, int size) {
+        int length = rowData.length;
+        if (size == -1 ? GridLayout.forCellCount(length * length) == null : length != size) {
+            return false;
+        }
+        for (int value : rowData) {
+            if (value > length) {
+                return false;
             }
         }
+        return true;
     }
 
     /*
@@ -135,22 +162,21 @@ public class Utils {
             String input = scanner.nextLine().trim();
             validateQuitCommand(input);
 
-            // Split the input by any whitespace character, comma, or semicolon
-            String[] values = input.split(SEPARATOR);
-            if (values.length == 81 && isValidInput(values)) {
+            int[] linearGrid = parseValues(input);
+            if (linearGrid != null && GridParser.isGrid(linearGrid, linearGrid.length)) {
                 ArrayList<int[]> grids = new ArrayList<>();
-                grids.add(convertToIntArray(values));
+                grids.add(linearGrid);
                 return grids;
             } else {
-                System.out.println(RED + "Invalid input. Please enter 81 integers." + RESET);
+                System.out.println(RED + "Invalid input. Please enter 81 integers (or 256 or 625 for larger grids)." + RESET);
             }
         }
     }
 
     /*
-     * Reads the grids from a file.
+     * Opens the file holding the grids, in a text format or as a binary corpus.
      */
-    private static ArrayList<int[]> readFromFile() {
+    private static GridSource readFromFile() {
         Scanner scanner = new Scanner(System.in);
 
         while (true) {
@@ -158,50 +184,24 @@ public class Utils {
             String filePath = scanner.nextLine().trim();
             validateQuitCommand(filePath);
 
-            File file = new File(filePath);
-            try (Scanner fileScanner = new Scanner(file)) {
-                return parseGridsFromFile(fileScanner);
-            } catch (FileNotFoundException e) {
+            try {
+                Path path = Path.of(filePath);
+                return BinaryCorpus.isBinaryCorpus(path) ? new BinaryCorpus(path) : new GridReader(path);
+            } catch (IOException | InvalidPathException e) {
                 System.out.println(RED + "File not found. Please try again." + RESET);
             }
         }
     }
 
     /*
-     * Parses the grids from the file.
+     * Parses the values of the input (see GridParser for the accepted formats),
+     * or returns null if the input doesn't hold valid values.
      */
-    private static ArrayList<int[]> parseGridsFromFile(Scanner fileScanner) {
-        ArrayList<int[]> grids = new ArrayList<>();
-
-        while (fileScanner.hasNextLine()) {
-            String line = fileScanner.nextLine().trim();
-            if (line.isEmpty()) continue;
-
-            // Split the line by any whitespace character, comma, or semicolon
-            String[] values = line.split(SEPARATOR);
-            if (values.length == 81 && isValidInput(values)) {
-                grids.add(convertToIntArray(values));
-            } else {
-                System.out.println(RED + "Invalid grid format in file." + RESET);
-            }
-        }
-
-        return grids;
-    }
-
-    /*
-     * Checks if the input values are valid.
-     */
-    private static boolean isValidInput(String[] values) {
-        for (String value : values) {
-            try {
-                int intValue = Integer.parseInt(value.trim());
-                if (intValue < -1 || intValue > 9) return false;
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-        return true;
+    private static int[] parseValues(String input) {
+        byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+        int[] values = new int[GridLayout.MAX_CELL_COUNT];
+        int count = GridParser.parse(bytes, 0, bytes.length, values);
+        return count > 0 ? Arrays.copyOf(values, count) : null;
     }
 
     /*
@@ -213,15 +213,4 @@ public class Utils {
             System.exit(0);
         }
     }
-
-    /*
-     * Converts the string array to an integer array.
-     */
-    private static int[] convertToIntArray(String[] values) {
-        int[] intArray = new int[values.length];
-        for (int i = 0; i < values.length; i++) {
-            intArray[i] = Integer.parseInt(values[i].trim());
-        }
-        return intArray;
-    }
 }
\ No newline at end of file
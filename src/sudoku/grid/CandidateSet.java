@@ -0,0 +1,78 @@
+package sudoku.grid;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+class CandidateSet extends AbstractSet<Integer> {
+    // Live Set<Integer> view over the candidate mask of a cell.
+
+    private final Cell cell;
+
+    CandidateSet(Cell cell) {
+        this.cell = cell;
+    }
+
+    /*
+     * Checks if the value is a candidate of the cell.
+     */
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer value && Candidates.contains(cell.getCandidates(), value);
+    }
+
+    /*
+     * Removes the value from the candidates of the cell.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        cell.removePossibleValue((Integer) o);
+        return true;
+    }
+
+    /*
+     * Gets the number of candidates of the cell.
+     */
+    @Override
+    public int size() {
+        return Candidates.count(cell.getCandidates());
+    }
+
+    /*
+     * Gets an iterator over the candidates, in increasing order.
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int remaining = cell.getCandidates();
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return remaining != 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                last = Candidates.lowest(remaining);
+                remaining = Candidates.withoutLowest(remaining);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == -1) {
+                    throw new IllegalStateException();
+                }
+                cell.removePossibleValue(last);
+                last = -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package sudoku.grid;
+
+public final class Candidates {
+    // Candidate sets are stored as int masks, one bit per value of the grid (9 bits
+    // for a 9x9 grid, up to 25 bits): bit (value - 1) is set when the value is still
+    // possible for a cell.
+
+    public static final int NONE = 0;
+
+    private Candidates() {
+    }
+
+    /*
+     * Gets the mask containing all the values from 1 to size.
+     */
+    public static int all(int size) {
+        return (1 << size) - 1;
+    }
+
+    /*
+     * Gets the mask containing only the given value.
+     */
+    public static int bit(int value) {
+        return 1 << (value - 1);
+    }
+
+    /*
+     * Checks if the mask contains the given value.
+     */
+    public static boolean contains(int mask, int value) {
+        return value >= 1 && value <= Integer.SIZE && (mask & bit(value)) != 0;
+    }
+
+    /*
+     * Gets the number of values in the mask.
+     */
+    public static int count(int mask) {
+        return Integer.bitCount(mask);
+    }
+
+    /*
+     * Gets the lowest value in the mask, or -1 if the mask is empty.
+     */
+    public static int lowest(int mask) {
+        return mask == 0 ? -1 : Integer.numberOfTrailingZeros(mask) + 1;
+    }
+
+    /*
+     * Removes the lowest value from the mask.
+     *
+     * Used to iterate over a mask without allocating:
+     * for (int m = mask; m != 0; m = Candidates.withoutLowest(m)) { int value = Candidates.lowest(m); ... }
+     */
+    public static int withoutLowest(int mask) {
+        return mask & (mask - 1);
+    }
+
+    /*
+     * Gets the values of the mask in increasing order.
+     */
+    public static int[] toArray(int mask) {
+        int[] values = new int[count(mask)];
+        int i = 0;
+        for (int m = mask; m != 0; m = withoutLowest(m)) {
+            values[i++] = lowest(m);
+        }
+        return values;
+    }
+}
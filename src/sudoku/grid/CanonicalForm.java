@@ -0,0 +1,52 @@
+package sudoku.grid;
+
+public class CanonicalForm {
+    // Canonical form of a grid (see Canonicalizer), with the transformation leading to it.
+
+    private final String key;
+    private final int[] cells;
+    private final int[] labels;
+    private final int[] digits;
+
+    CanonicalForm(String key, int[] cells, int[] labels) {
+        this.key = key;
+        this.cells = cells;
+        this.labels = labels;
+        this.digits = new int[labels.length];
+        for (int digit = 1; digit < labels.length; digit++) {
+            digits[labels[digit]] = digit;
+        }
+    }
+
+    /*
+     * Gets the canonical grid, one character per cell with '0' for empty cells.
+     * Equivalent grids usually share the same key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /*
+     * Transforms values of the original grid into the canonical grid (-1 and 0 are kept as they are).
+     */
+    public int[] toCanonical(int[] values) {
+        int[] canonical = new int[cells.length];
+        for (int index = 0; index < cells.length; index++) {
+            int value = values[cells[index]];
+            canonical[index] = value > 0 ? labels[value] : value;
+        }
+        return canonical;
+    }
+
+    /*
+     * Transforms values of the canonical grid back into the original grid (-1 and 0 are kept as they are).
+     */
+    public int[] fromCanonical(int[] canonical) {
+        int[] values = new int[cells.length];
+        for (int index = 0; index < cells.length; index++) {
+            int value = canonical[index];
+            values[cells[index]] = value > 0 ? digits[value] : value;
+        }
+        return values;
+    }
+}
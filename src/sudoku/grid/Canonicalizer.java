@@ -0,0 +1,268 @@
+package sudoku.grid;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class Canonicalizer {
+    // Reduces a 9x9 grid to a canonical form shared by all the grids it is equivalent to
+    // under digit relabelling, band/stack permutations, row/column permutations
+    // within a band/stack and transposition.
+    //
+    // Searching all 2 * 6^8 geometric transformations would cost far more than solving
+    // the grid, so rows and columns are first ordered by invariants: properties that
+    // don't change under any of these transformations (the number of clues of a line,
+    // how they spread over the boxes and the number of clues of the lines crossing them).
+    // Only the orders left open by ties between invariants are tried, relabelling the
+    // digits by first appearance, and the smallest grid obtained is the canonical form.
+    //
+    // When the ties allow more than MAX_TRANSFORMS orders, only the first ones are tried:
+    // the form is then still a valid transformation of the grid, but equivalent grids
+    // may get different forms. Most grids leave only a few orders open, so the cost of a
+    // canonical form is mostly computing the invariants, and a lower cap would lose hits
+    // on easy grids without making it cheaper.
+
+    public static final int MAX_TRANSFORMS = 256;
+
+    private static final GridLayout LAYOUT = GridLayout.STANDARD;
+    private static final int SIZE = LAYOUT.getSize();
+    private static final int BOX_SIZE = LAYOUT.getBoxSize();
+    private static final int CELL_COUNT = LAYOUT.getCellCount();
+    private static final int[][] PERMUTATIONS = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+
+    private Canonicalizer() {
+    }
+
+    /*
+     * Checks if grids of the given number of cells can be canonicalized: only 9x9 grids can.
+     */
+    public static boolean supports(int cellCount) {
+        return cellCount == CELL_COUNT;
+    }
+
+    /*
+     * Computes the canonical form of a 9x9 grid, with 0 or -1 for empty cells.
+     */
+    public static CanonicalForm canonicalize(int[] values) {
+        // Clue masks of the lines: bit c of rowMasks[r] is set if cell (r, c) holds a clue
+        int[] rowMasks = new int[SIZE];
+        int[] colMasks = new int[SIZE];
+        for (int index = 0; index < CELL_COUNT; index++) {
+            if (values[index] > 0) {
+                rowMasks[LAYOUT.getRow(index)] |= 1 << LAYOUT.getCol(index);
+                colMasks[LAYOUT.getCol(index)] |= 1 << LAYOUT.getRow(index);
+            }
+        }
+
+        // Transposing the grid swaps the keys of the rows and the columns
+        long[] keys = new long[2 * SIZE];
+        long[] transposedKeys = new long[2 * SIZE];
+        for (int line = 0; line < SIZE; line++) {
+            keys[line] = transposedKeys[SIZE + line] = lineKey(rowMasks[line], colMasks);
+            keys[SIZE + line] = transposedKeys[line] = lineKey(colMasks[line], rowMasks);
+        }
+
+        // Keep the orientation with the smallest invariants, or both if they are the same
+        int comparison = compareOrientations(keys, transposedKeys);
+        Search search = new Search(values);
+        if (comparison <= 0) {
+            search.run(false, keys);
+        }
+        if (comparison >= 0) {
+            search.run(true, transposedKeys);
+        }
+        return search.result();
+    }
+
+    /*
+     * Computes the invariant key of a line from its clue mask and the clue masks of the crossing lines.
+     *
+     * A key packs the number of clues of the line, the sorted numbers of clues of its
+     * 3 segments, and for each n the number of its clues lying on crossing lines holding n clues.
+     */
+    private static long lineKey(int mask, int[] crossingMasks) {
+        long crossing = 0;
+        for (int m = mask; m != 0; m &= m - 1) {
+            crossing += 1L << (4 * Integer.bitCount(crossingMasks[Integer.numberOfTrailingZeros(m)]));
+        }
+
+        int first = Integer.bitCount(mask & 0x7);
+        int second = Integer.bitCount(mask & 0x38);
+        int third = Integer.bitCount(mask & 0x1C0);
+        int low = Math.min(first, Math.min(second, third));
+        int high = Math.max(first, Math.max(second, third));
+        int middle = first + second + third - low - high;
+        return (long) Integer.bitCount(mask) << 52 | (long) (low << 8 | middle << 4 | high) << 40 | crossing;
+    }
+
+    /*
+     * Compares the invariants of two orientations: the sorted band keys, then the sorted stack keys.
+     */
+    private static int compareOrientations(long[] keys, long[] transposedKeys) {
+        for (int offset = 0; offset <= SIZE; offset += SIZE) {
+            long[] first = sortedBandKeys(keys, offset);
+            long[] second = sortedBandKeys(transposedKeys, offset);
+            for (int i = 0; i < first.length; i++) {
+                if (first[i] != second[i]) {
+                    return Long.compare(first[i], second[i]);
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static long[] sortedBandKeys(long[] keys, int offset) {
+        long[][] bands = new long[BOX_SIZE][];
+        for (int band = 0; band < BOX_SIZE; band++) {
+            bands[band] = bandKey(keys, offset, band);
+        }
+        Arrays.sort(bands, Canonicalizer::compareKeys);
+
+        long[] sorted = new long[SIZE];
+        for (int band = 0; band < BOX_SIZE; band++) {
+            System.arraycopy(bands[band], 0, sorted, band * BOX_SIZE, BOX_SIZE);
+        }
+        return sorted;
+    }
+
+    /*
+     * Gets the sorted keys of the 3 lines of a band (or stack).
+     */
+    private static long[] bandKey(long[] keys, int offset, int band) {
+        long[] bandKey = new long[BOX_SIZE];
+        System.arraycopy(keys, offset + band * BOX_SIZE, bandKey, 0, BOX_SIZE);
+        Arrays.sort(bandKey);
+        return bandKey;
+    }
+
+    private static int compareKeys(long[] first, long[] second) {
+        return Arrays.compare(first, second);
+    }
+
+    /*
+     * Lists the orders of the 9 lines (rows if offset is 0, columns if it is SIZE)
+     * that sort bands and the lines within each band by their keys.
+     */
+    private static List<int[]> lineOrders(long[] keys, int offset) {
+        long[][] bandKeys = new long[BOX_SIZE][];
+        for (int band = 0; band < BOX_SIZE; band++) {
+            bandKeys[band] = bandKey(keys, offset, band);
+        }
+
+        List<int[]> orders = new ArrayList<>();
+        for (int[] bandOrder : PERMUTATIONS) {
+            if (compareKeys(bandKeys[bandOrder[0]], bandKeys[bandOrder[1]]) <= 0
+                    && compareKeys(bandKeys[bandOrder[1]], bandKeys[bandOrder[2]]) <= 0) {
+                addLineOrders(keys, offset, bandOrder, 0, new int[SIZE], orders);
+            }
+        }
+        return orders;
+    }
+
+    private static void addLineOrders(long[] keys, int offset, int[] bandOrder, int position, int[] order, List<int[]> orders) {
+        if (position == BOX_SIZE) {
+            orders.add(order.clone());
+            return;
+        }
+
+        int first = bandOrder[position] * BOX_SIZE;
+        for (int[] lineOrder : PERMUTATIONS) {
+            if (keys[offset + first + lineOrder[0]] <= keys[offset + first + lineOrder[1]]
+                    && keys[offset + first + lineOrder[1]] <= keys[offset + first + lineOrder[2]]) {
+                for (int i = 0; i < BOX_SIZE; i++) {
+                    order[position * BOX_SIZE + i] = first + lineOrder[i];
+                }
+                addLineOrders(keys, offset, bandOrder, position + 1, order, orders);
+            }
+        }
+    }
+
+    private static class Search {
+        // Tries the row and column orders of the orientations and keeps the smallest relabelled grid.
+
+        private final int[] values;
+        private final int[] oriented = new int[CELL_COUNT];
+        private final byte[] best = new byte[CELL_COUNT];
+        private final byte[] current = new byte[CELL_COUNT];
+        private final int[] bestCells = new int[CELL_COUNT];
+        private final int[] labels = new int[SIZE + 1];
+        private int[] bestLabels;
+        private int transforms;
+
+        Search(int[] values) {
+            this.values = values;
+            best[0] = Byte.MAX_VALUE; // Larger than any grid
+        }
+
+        /*
+         * Tries the orders of one orientation.
+         */
+        void run(boolean transposed, long[] keys) {
+            for (int index = 0; index < CELL_COUNT; index++) {
+                oriented[index] = transposed ? LAYOUT.index(LAYOUT.getCol(index), LAYOUT.getRow(index)) : index;
+            }
+
+            List<int[]> colOrders = lineOrders(keys, SIZE);
+            for (int[] rowOrder : lineOrders(keys, 0)) {
+                for (int[] colOrder : colOrders) {
+                    if (transforms++ == MAX_TRANSFORMS) {
+                        return;
+                    }
+                    tryOrder(rowOrder, colOrder);
+                }
+            }
+        }
+
+        /*
+         * Relabels the grid with the given rows and columns, and keeps it if it is the smallest so far.
+         */
+        private void tryOrder(int[] rowOrder, int[] colOrder) {
+            Arrays.fill(labels, 0);
+            int nextLabel = 1;
+            boolean smaller = false;
+
+            for (int index = 0, row = 0; row < SIZE; row++) {
+                int rowStart = rowOrder[row] * SIZE;
+                for (int col = 0; col < SIZE; col++, index++) {
+                    int value = values[oriented[rowStart + colOrder[col]]];
+                    int label = 0;
+                    if (value > 0) {
+                        if (labels[value] == 0) {
+                            labels[value] = nextLabel++;
+                        }
+                        label = labels[value];
+                    }
+
+                    current[index] = (byte) ('0' + label);
+                    if (!smaller) {
+                        if (current[index] > best[index]) {
+                            return;
+                        }
+                        smaller = current[index] < best[index];
+                    }
+                }
+            }
+            if (!smaller) {
+                return; // Same grid as the best one
+            }
+
+            System.arraycopy(current, 0, best, 0, CELL_COUNT);
+            for (int index = 0; index < CELL_COUNT; index++) {
+                bestCells[index] = oriented[rowOrder[LAYOUT.getRow(index)] * SIZE + colOrder[LAYOUT.getCol(index)]];
+            }
+
+            // Digits without clues get the labels left, in increasing order
+            for (int digit = 1; digit <= SIZE; digit++) {
+                if (labels[digit] == 0) {
+                    labels[digit] = nextLabel++;
+                }
+            }
+            bestLabels = labels.clone();
+        }
+
+        CanonicalForm result() {
+            return new CanonicalForm(new String(best, StandardCharsets.ISO_8859_1), bestCells.clone(), bestLabels);
+        }
+    }
+}
@@ -1,76 +1,95 @@
 package sudoku.grid;
 
-import java.util.HashSet;
 import java.util.Set;
 
 public class Cell {
-    private final int row;
-    private final int col;
-    private int value;
-    private final Set<Integer> possibleValues;
+    // Lightweight view over one cell of a SudokuGrid.
 
-    public Cell(int row, int col) {
-        this.row = row;
-        this.col = col;
-        this.value = -1;
+    private final SudokuGrid grid;
+    private final int index;
+    private Set<Integer> possibleValues;
 
-        // Initialize the possible values for the cell
-        Set<Integer> possibleVal = new HashSet<>();
-        for (int val = 1; val <= 9; val++) {
-            possibleVal.add(val);
-        }
+    public Cell(SudokuGrid grid, int index) {
+        this.grid = grid;
+        this.index = index;
+    }
 
-        this.possibleValues = possibleVal;
+    /*
+     * Gets the index of the cell in the grid (see GridLayout).
+     */
+    public int getIndex() {
+        return index;
     }
 
     /*
      * Gets the row of the cell.
      */
     public int getRow() {
-        return row;
+        return grid.getLayout().getRow(index);
     }
 
     /*
      * Gets the column of the cell.
      */
     public int getCol() {
-        return col;
+        return grid.getLayout().getCol(index);
     }
 
     /*
      * Gets the value of the cell.
      */
     public int getValue() {
-        return value;
+        return grid.getValue(index);
     }
 
     /*
      * Sets the possible values for the cell.
      */
     public void setCellPossibleValues(Set<Integer> integers) {
-        this.possibleValues.clear();
-        this.possibleValues.addAll(integers);
+        int mask = Candidates.NONE;
+        for (int val : integers) {
+            mask |= Candidates.bit(val);
+        }
+        grid.setCandidates(index, mask);
     }
 
     /*
      * Sets the value of the cell.
      */
     public void setValue(int value) {
-        this.value = value;
-        removePossibleValue(value);
+        grid.setValue(index, value);
     }
 
     /*
      * Removes a possible value from the cell.
      */
     public void removePossibleValue(int value) {
-        possibleValues.remove(value);
+        grid.removeCellPossibleValue(index, value);
+    }
+
+    /*
+     * Gets the candidate mask of the cell (see Candidates).
+     */
+    public int getCandidates() {
+        return grid.getCandidates(index);
+    }
+
+    /*
+     * Sets the candidate mask of the cell (see Candidates).
+     */
+    public void setCandidates(int candidates) {
+        grid.setCandidates(index, candidates);
     }
 
     /*
      * Gets the possible values for the cell.
+     *
+     * The set is a live view over the candidate mask, created on first use.
      */
     public Set<Integer> getCellPossibleValues() {
+        if (possibleValues == null) {
+            possibleValues = new CandidateSet(this);
+        }
         return this.possibleValues;
     }
 }
\ No newline at end of file
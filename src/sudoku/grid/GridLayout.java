@@ -0,0 +1,230 @@
+package sudoku.grid;
+
+public final class GridLayout {
+    // Tables describing a grid of order n = b * b (b being the box size) as a flat
+    // array of n * n cells. Cell (row, col) is stored at index row * n + col.
+    //
+    // Units 0 to n-1 are the rows, n to 2n-1 the columns and 2n to 3n-1 the boxes
+    // (boxes numbered in reading order, cells of a unit in reading order).
+    //
+    // Layouts are built once per order and shared: the arrays they return must not be modified.
+    // Candidate and position masks are ints, which limits the order to 25.
+
+    public static final int MIN_BOX_SIZE = 2;
+    public static final int MAX_BOX_SIZE = 5;
+    public static final int MAX_SIZE = MAX_BOX_SIZE * MAX_BOX_SIZE;
+    public static final int MAX_CELL_COUNT = MAX_SIZE * MAX_SIZE;
+
+    private static final GridLayout[] layouts = new GridLayout[MAX_BOX_SIZE + 1];
+
+    static {
+        for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            layouts[boxSize] = new GridLayout(boxSize);
+        }
+    }
+
+    // The classic 9x9 grid
+    public static final GridLayout STANDARD = of(3);
+
+    private final int boxSize;
+    private final int size;
+    private final int cellCount;
+    private final int unitCount;
+
+    // Row, column and box of each cell
+    private final int[] rows;
+    private final int[] cols;
+    private final int[] boxes;
+
+    // Cells of each unit
+    private final int[][] units;
+
+    // Units containing each cell: its row, column and box unit
+    private final int[][] cellUnits;
+
+    // Position of each cell inside each of its units (same order as cellUnits)
+    private final int[][] unitPositions;
+
+    // Cells sharing a unit with each cell, excluding the cell itself
+    private final int[][] peers;
+
+    private GridLayout(int boxSize) {
+        this.boxSize = boxSize;
+        this.size = boxSize * boxSize;
+        this.cellCount = size * size;
+        this.unitCount = 3 * size;
+        this.rows = new int[cellCount];
+        this.cols = new int[cellCount];
+        this.boxes = new int[cellCount];
+        this.units = new int[unitCount][size];
+        this.cellUnits = new int[cellCount][3];
+        this.unitPositions = new int[cellCount][3];
+        this.peers = new int[cellCount][3 * size - 2 * boxSize - 1];
+
+        for (int index = 0; index < cellCount; index++) {
+            int row = index / size;
+            int col = index % size;
+            int box = (row / boxSize) * boxSize + col / boxSize;
+            int position = (row % boxSize) * boxSize + col % boxSize;
+
+            rows[index] = row;
+            cols[index] = col;
+            boxes[index] = box;
+
+            units[getRowUnit(row)][col] = index;
+            units[getColUnit(col)][row] = index;
+            units[getBoxUnit(box)][position] = index;
+
+            cellUnits[index][0] = getRowUnit(row);
+            cellUnits[index][1] = getColUnit(col);
+            cellUnits[index][2] = getBoxUnit(box);
+
+            unitPositions[index][0] = col;
+            unitPositions[index][1] = row;
+            unitPositions[index][2] = position;
+        }
+
+        for (int index = 0; index < cellCount; index++) {
+            int count = 0;
+            for (int other = 0; other < cellCount; other++) {
+                if (other != index && (rows[other] == rows[index] || cols[other] == cols[index] || boxes[other] == boxes[index])) {
+                    peers[index][count++] = other;
+                }
+            }
+        }
+    }
+
+    /*
+     * Gets the layout of the grids with the given box size (3 for 9x9 grids, 4 for 16x16...).
+     */
+    public static GridLayout of(int boxSize) {
+        if (boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Unsupported box size: " + boxSize);
+        }
+        return layouts[boxSize];
+    }
+
+    /*
+     * Gets the layout of the grids with the given number of cells, or null if there is none.
+     */
+    public static GridLayout forCellCount(int cellCount) {
+        for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            if (layouts[boxSize].cellCount == cellCount) {
+                return layouts[boxSize];
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Gets the size of the boxes (3 for a 9x9 grid).
+     */
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    /*
+     * Gets the order of the grid: its number of rows, columns, boxes and values.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /*
+     * Gets the number of cells of the grid.
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /*
+     * Gets the number of units (rows, columns and boxes) of the grid.
+     */
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    /*
+     * Gets the index of the cell at the specified row and column.
+     */
+    public int index(int row, int col) {
+        return row * size + col;
+    }
+
+    /*
+     * Gets the row of a cell.
+     */
+    public int getRow(int index) {
+        return rows[index];
+    }
+
+    /*
+     * Gets the column of a cell.
+     */
+    public int getCol(int index) {
+        return cols[index];
+    }
+
+    /*
+     * Gets the box of a cell.
+     */
+    public int getBox(int index) {
+        return boxes[index];
+    }
+
+    /*
+     * Gets the unit number of a row.
+     */
+    public int getRowUnit(int row) {
+        return row;
+    }
+
+    /*
+     * Gets the unit number of a column.
+     */
+    public int getColUnit(int col) {
+        return size + col;
+    }
+
+    /*
+     * Gets the unit number of a box.
+     */
+    public int getBoxUnit(int box) {
+        return 2 * size + box;
+    }
+
+    /*
+     * Gets the cells of a unit.
+     */
+    public int[] getUnit(int unit) {
+        return units[unit];
+    }
+
+    /*
+     * Gets the units containing a cell: its row, column and box unit.
+     */
+    public int[] getCellUnits(int index) {
+        return cellUnits[index];
+    }
+
+    /*
+     * Gets the position of a cell inside each of its units (same order as getCellUnits).
+     */
+    public int[] getUnitPositions(int index) {
+        return unitPositions[index];
+    }
+
+    /*
+     * Gets the cells sharing a unit with a cell, excluding the cell itself.
+     */
+    public int[] getPeers(int index) {
+        return peers[index];
+    }
+
+    /*
+     * Checks if two different cells share a unit.
+     */
+    public boolean sees(int first, int second) {
+        return first != second && (rows[first] == rows[second] || cols[first] == cols[second] || boxes[first] == boxes[second]);
+    }
+}
@@ -0,0 +1,118 @@
+package sudoku.grid;
+
+public class PropagationQueue {
+    // Work queue filled by SudokuGrid as candidates are removed.
+    //
+    // A cell is queued when it is left with a single candidate (naked single),
+    // and a unit is queued with the values left with a single position in it
+    // (hidden singles). Each cell and each unit is queued at most once, so
+    // the queue never holds more than the cells and units of the grid.
+
+    private final int[] cells;
+    private final boolean[] cellQueued;
+    private int cellHead;
+    private int cellCount;
+
+    private final int[] units;
+    private final int[] unitValues;
+    private int unitHead;
+    private int unitCount;
+
+    public PropagationQueue(GridLayout layout) {
+        this.cells = new int[layout.getCellCount()];
+        this.cellQueued = new boolean[layout.getCellCount()];
+        this.units = new int[layout.getUnitCount()];
+        this.unitValues = new int[layout.getUnitCount()];
+    }
+
+    public PropagationQueue(PropagationQueue other) {
+        this.cells = other.cells.clone();
+        this.cellQueued = other.cellQueued.clone();
+        this.cellHead = other.cellHead;
+        this.cellCount = other.cellCount;
+        this.units = other.units.clone();
+        this.unitValues = other.unitValues.clone();
+        this.unitHead = other.unitHead;
+        this.unitCount = other.unitCount;
+    }
+
+    /*
+     * Queues a cell left with a single candidate.
+     */
+    public void pushCell(int index) {
+        if (!cellQueued[index]) {
+            cellQueued[index] = true;
+            cells[(cellHead + cellCount) % cells.length] = index;
+            cellCount++;
+        }
+    }
+
+    /*
+     * Gets the next queued cell, or -1 if there is none.
+     */
+    public int pollCell() {
+        if (cellCount == 0) {
+            return -1;
+        }
+        int index = cells[cellHead];
+        cellHead = (cellHead + 1) % cells.length;
+        cellCount--;
+        cellQueued[index] = false;
+        return index;
+    }
+
+    /*
+     * Queues a unit with values (as a candidate mask) left with a single position in it.
+     */
+    public void pushUnit(int unit, int valueMask) {
+        if (unitValues[unit] == 0) {
+            units[(unitHead + unitCount) % units.length] = unit;
+            unitCount++;
+        }
+        unitValues[unit] |= valueMask;
+    }
+
+    /*
+     * Gets the next queued unit, or -1 if there is none.
+     *
+     * The values queued for the unit must then be taken with takeUnitValues.
+     */
+    public int pollUnit() {
+        if (unitCount == 0) {
+            return -1;
+        }
+        int unit = units[unitHead];
+        unitHead = (unitHead + 1) % units.length;
+        unitCount--;
+        return unit;
+    }
+
+    /*
+     * Gets and clears the values queued for a unit.
+     */
+    public int takeUnitValues(int unit) {
+        int values = unitValues[unit];
+        unitValues[unit] = 0;
+        return values;
+    }
+
+    /*
+     * Checks if there are no queued cells or units.
+     */
+    public boolean isEmpty() {
+        return cellCount == 0 && unitCount == 0;
+    }
+
+    /*
+     * Removes all queued cells and units.
+     */
+    public void clear() {
+        while (pollCell() != -1) {
+            // Drop the cell
+        }
+        int unit;
+        while ((unit = pollUnit()) != -1) {
+            takeUnitValues(unit);
+        }
+    }
+}
@@ -2,13 +2,11 @@ package sudoku.grid;
 
 public class SudokuCellIterator implements CellIterator {
     private final SudokuGrid grid;
-    private int currentRow;
-    private int currentCol;
+    private int currentIndex;
 
     public SudokuCellIterator(SudokuGrid grid) {
         this.grid = grid;
-        this.currentRow = 0;
-        this.currentCol = 0;
+        this.currentIndex = 0;
     }
 
     /*
@@ -16,7 +14,7 @@ public class SudokuCellIterator implements CellIterator {
      */
     @Override
     public boolean hasNext() {
-        return currentRow < 9 && currentCol < 9;
+        return currentIndex < grid.getLayout().getCellCount();
     }
 
     /*
@@ -28,14 +26,6 @@ public class SudokuCellIterator implements CellIterator {
             throw new IllegalStateException("No more cells to iterate.");
         }
 
-        Cell newcell = grid.getCell(currentRow, currentCol);
-
-        currentCol++;
-        if (currentCol == 9) {
-            currentCol = 0;
-            currentRow++;
-        }
-
-        return newcell;
+        return grid.getCell(currentIndex++);
     }
 }
\ No newline at end of file
@@ -1,18 +1,134 @@
 package sudoku.grid;
 
+import java.io.PrintStream;
+import java.util.Arrays;
+
 public class SudokuGrid {
-    private final Cell[][] grid;
+    // Flat layout (see GridLayout): one value and one candidate mask per cell.
+    // The order of the grid (9 for 9x9, 16, 25...) comes from its layout.
+    // Empty cells have the value -1, filled cells have no candidates left.
+    // Every modification is counted, so callers can detect progress in O(1).
+    //
+    // For each unit and value, a mask gives the positions of the unit where
+    // the value is still a candidate. Removing a candidate updates these masks and
+    // queues the naked and hidden singles it creates (see PropagationQueue).
+    //
+    // The cells left with exactly two candidates (bivalue cells) and, for each value, the
+    // units where it has exactly two positions (conjugate pairs) are kept as bitsets updated
+    // with the masks, so the wing and coloring rules don't have to scan the whole grid.
+    //
+    // While a checkpoint is open, every write to the values, candidates and placed values pushes
+    // the slot and its previous content on a trail of ints, so rollback undoes the writes since
+    // a checkpoint in reverse order, in time proportional to their number. A candidate mask is
+    // only pushed on its first write since the last checkpoint or rollback (tracked with epoch
+    // stamps), and the positions aren't pushed at all: they follow from the candidates, so
+    // rollback flips the position bits of the candidates it restores. The bivalue and conjugate
+    // bitsets are only a few words long and are saved whole at each checkpoint.
+    // Search can then explore branches on a single grid instead of copying it at each node.
+    //
+    // The grid becomes contradictory when an empty cell has no candidate left, when a
+    // value has no position left in a unit where it isn't placed, or when a value is
+    // placed twice in a unit or in a cell where it was no longer a candidate.
+
+    private final GridLayout layout;
+    private final int size;
+    private final int[] values;
+    private final int[] candidates;
+    private final int[] positions;
+    private final int[] placedValues;
+    private final long[] bivalueCells;
+    private final long[] conjugateUnits;
+    private final int unitWords;
+    private final PropagationQueue queue;
+    private boolean contradiction;
+    private int[] trail = new int[0];
+    private int trailSize;
+    private int[] checkpointMarks = new int[0];
+    private boolean[] checkpointContradictions = new boolean[0];
+    private long[] checkpointBitsets = new long[0];
+    private int checkpointCount;
+    private int[] candidateStamps;
+    private int epoch;
+    private long placements;
+    private long eliminations;
+    private long changes;
 
+    /*
+     * Creates a grid from its values in reading order, with 0 or -1 for empty cells.
+     * The order of the grid is given by the number of values (81 for 9x9, 256 for 16x16...).
+     */
     public SudokuGrid(int[] linearGrid) {
-        linearGrid = transformLinearGrid(linearGrid);
+        this(layoutOf(linearGrid), linearGrid);
+    }
+
+    public SudokuGrid(GridLayout layout, int[] linearGrid) {
+        this.layout = layout;
+        this.size = layout.getSize();
+        this.values = new int[layout.getCellCount()];
+        this.candidates = new int[layout.getCellCount()];
+        this.positions = new int[layout.getUnitCount() * size];
+        this.placedValues = new int[layout.getUnitCount()];
+        this.bivalueCells = new long[words(layout.getCellCount())];
+        this.unitWords = words(layout.getUnitCount());
+        this.conjugateUnits = new long[size * unitWords];
+        this.queue = new PropagationQueue(layout);
+        loadClues(linearGrid);
+    }
 
-        this.grid = initializeGrid();
+    /*
+     * Copies a grid. The copy has no open checkpoint.
+     */
+    public SudokuGrid(SudokuGrid other) {
+        this.layout = other.layout;
+        this.size = other.size;
+        this.values = other.values.clone();
+        this.candidates = other.candidates.clone();
+        this.positions = other.positions.clone();
+        this.placedValues = other.placedValues.clone();
+        this.bivalueCells = other.bivalueCells.clone();
+        this.unitWords = other.unitWords;
+        this.conjugateUnits = other.conjugateUnits.clone();
+        this.queue = new PropagationQueue(other.queue);
+        this.contradiction = other.contradiction;
+        this.placements = other.placements;
+        this.eliminations = other.eliminations;
+        this.changes = other.changes;
+    }
 
-        for (int i = 0; i < 81; i++) {
-            int row = i / 9;
-            int col = i % 9;
-            setValue(row, col, linearGrid[i]);
+    /*
+     * Gets the layout of a grid from its number of values.
+     */
+    private static GridLayout layoutOf(int[] linearGrid) {
+        GridLayout layout = GridLayout.forCellCount(linearGrid.length);
+        if (layout == null) {
+            throw new IllegalArgumentException("Unsupported grid of " + linearGrid.length + " cells.");
         }
+        return layout;
+    }
+
+    // Kinds of trail entries, stored in the high bits of the slot
+    private static final int VALUE = 0;
+    private static final int CANDIDATES = 1;
+    private static final int PLACED = 2;
+    private static final int KIND_SHIFT = 16;
+    private static final int SLOT_MASK = (1 << KIND_SHIFT) - 1;
+
+    private static int words(int bits) {
+        return (bits + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /*
+     * Gets the layout of the grid.
+     */
+    public GridLayout getLayout() {
+        return layout;
+    }
+
+    /*
+     * Gets the order of the grid: its number of rows, columns, boxes and values.
+     */
+    public int getSize() {
+        return size;
     }
 
     /*
@@ -23,94 +139,512 @@ public class SudokuGrid {
     }
 
     /*
-     * Initializes the grid with empty cells.
+     * Places the clues and computes the candidates and positions they leave in one pass,
+     * instead of removing the candidates of the peers clue by clue as setValue does.
+     * The singles, bivalue cells and conjugate pairs are then queued and recorded from the final masks.
      */
-    private Cell[][] initializeGrid() {
-        Cell[][] newGrid = new Cell[9][9];
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                newGrid[row][col] = new Cell(row, col);
+    private void loadClues(int[] linearGrid) {
+        Arrays.fill(values, -1);
+        for (int index = 0; index < values.length; index++) {
+            int value = linearGrid[index];
+            if (value >= 1 && value <= size) {
+                int bit = Candidates.bit(value);
+                for (int unit : layout.getCellUnits(index)) {
+                    if ((placedValues[unit] & bit) != 0) {
+                        contradiction = true;
+                    }
+                    placedValues[unit] |= bit;
+                }
+                values[index] = value;
+                placements++;
             }
         }
-        return newGrid;
+
+        int all = Candidates.all(size);
+        for (int index = 0; index < values.length; index++) {
+            if (values[index] == -1) {
+                int[] units = layout.getCellUnits(index);
+                int mask = all & ~(placedValues[units[0]] | placedValues[units[1]] | placedValues[units[2]]);
+                candidates[index] = mask;
+                eliminations += size - Candidates.count(mask);
+
+                if (mask == 0) {
+                    contradiction = true;
+                } else if (Candidates.count(mask) == 1) {
+                    queue.pushCell(index);
+                }
+                updateBivalue(index, mask);
+            }
+        }
+
+        for (int unit = 0; unit < layout.getUnitCount(); unit++) {
+            int[] cells = layout.getUnit(unit);
+            for (int position = 0; position < size; position++) {
+                for (int m = candidates[cells[position]]; m != 0; m &= m - 1) {
+                    positions[unit * size + Integer.numberOfTrailingZeros(m)] |= 1 << position;
+                }
+            }
+
+            for (int offset = 0; offset < size; offset++) {
+                int left = positions[unit * size + offset];
+                if (left == 0) {
+                    if ((placedValues[unit] & 1 << offset) == 0) {
+                        contradiction = true;
+                    }
+                } else if (Integer.bitCount(left) == 1) {
+                    queue.pushUnit(unit, 1 << offset);
+                }
+                updateConjugate(unit, offset, left);
+            }
+        }
+        changes = placements + eliminations;
     }
 
     /*
      * Removes a possible value from a cell.
      */
     public void removeCellPossibleValue(int row, int col, int value) {
-        Cell cell = grid[row][col];
-        cell.removePossibleValue(value);
+        removeCellPossibleValue(layout.index(row, col), value);
     }
 
+    /*
+     * Removes a possible value from the cell at the specified index.
+     */
+    public void removeCellPossibleValue(int index, int value) {
+        if (value >= 1 && value <= size && (candidates[index] & Candidates.bit(value)) != 0) {
+            clearCandidate(index, Candidates.bit(value));
+            eliminations++;
+            changes++;
+        }
+    }
 
     /*
      * Sets the value of a cell.
      */
     public void setValue(int row, int column, int value) {
-        Cell cell = grid[row][column];
-        cell.setValue(value);
+        setValue(layout.index(row, column), value);
+    }
+
+    /*
+     * Sets the value of the cell at the specified index and removes it from the candidates of its peers.
+     */
+    public void setValue(int index, int value) {
+        if (value < 1 || value > size || values[index] == value) {
+            return;
+        }
+
+        int bit = Candidates.bit(value);
+        if (values[index] == -1 && (candidates[index] & bit) == 0) {
+            contradiction = true;
+        }
+        for (int unit : layout.getCellUnits(index)) {
+            if ((placedValues[unit] & bit) != 0) {
+                contradiction = true;
+            }
+            record(PLACED, unit, placedValues[unit]);
+            placedValues[unit] |= bit;
+        }
+
+        record(VALUE, index, values[index]);
+        values[index] = value;
+        placements++;
+        changes++;
+
+        // A filled cell is no longer a position for any value in its units
+        for (int m = candidates[index]; m != 0; m = Candidates.withoutLowest(m)) {
+            clearCandidate(index, m & -m);
+        }
+
+        for (int peer : layout.getPeers(index)) {
+            if ((candidates[peer] & bit) != 0) {
+                clearCandidate(peer, bit);
+                eliminations++;
+                changes++;
+            }
+        }
+    }
+
+    /*
+     * Gets the value of the cell at the specified index.
+     */
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    /*
+     * Gets a copy of the values of the grid, with -1 for empty cells.
+     */
+    public int[] getValues() {
+        return values.clone();
+    }
+
+    /*
+     * Gets the candidate mask of the cell at the specified index (see Candidates).
+     */
+    public int getCandidates(int index) {
+        return candidates[index];
+    }
+
+    /*
+     * Sets the candidate mask of the cell at the specified index (see Candidates).
+     */
+    public void setCandidates(int index, int mask) {
+        mask &= Candidates.all(size);
+        int previous = candidates[index];
+        if (previous == mask) {
+            return;
+        }
+
+        for (int m = previous & ~mask; m != 0; m = Candidates.withoutLowest(m)) {
+            clearCandidate(index, m & -m);
+            eliminations++;
+        }
+        for (int m = mask & ~previous; m != 0; m = Candidates.withoutLowest(m)) {
+            addCandidate(index, m & -m);
+        }
+        changes++;
+    }
+
+    /*
+     * Removes a candidate (as a single-bit mask) from a cell, updates the positions
+     * of the value in the units of the cell and queues the singles this creates.
+     */
+    private void clearCandidate(int index, int bit) {
+        recordCandidates(index);
+        int remaining = candidates[index] &= ~bit;
+        if (values[index] == -1) {
+            if (remaining == 0) {
+                contradiction = true;
+            } else if (Candidates.count(remaining) == 1) {
+                queue.pushCell(index);
+            }
+        }
+        updateBivalue(index, remaining);
+
+        int offset = Integer.numberOfTrailingZeros(bit);
+        int[] units = layout.getCellUnits(index);
+        int[] unitPositions = layout.getUnitPositions(index);
+        for (int k = 0; k < units.length; k++) {
+            int left = positions[units[k] * size + offset] &= ~(1 << unitPositions[k]);
+            if (left == 0) {
+                if ((placedValues[units[k]] & bit) == 0) {
+                    contradiction = true;
+                }
+            } else if (Integer.bitCount(left) == 1) {
+                queue.pushUnit(units[k], bit);
+            }
+            updateConjugate(units[k], offset, left);
+        }
+    }
+
+    /*
+     * Adds a candidate (as a single-bit mask) to a cell and to the positions of the value in its units.
+     */
+    private void addCandidate(int index, int bit) {
+        recordCandidates(index);
+        int current = candidates[index] |= bit;
+        if (values[index] == -1 && Candidates.count(current) == 1) {
+            queue.pushCell(index);
+        }
+        updateBivalue(index, current);
+
+        int offset = Integer.numberOfTrailingZeros(bit);
+        int[] units = layout.getCellUnits(index);
+        int[] unitPositions = layout.getUnitPositions(index);
+        for (int k = 0; k < units.length; k++) {
+            updateConjugate(units[k], offset, positions[units[k] * size + offset] |= 1 << unitPositions[k]);
+        }
+    }
+
+    /*
+     * Pushes the candidates of a cell on the trail, unless they were already pushed in this epoch.
+     */
+    private void recordCandidates(int index) {
+        if (checkpointCount != 0 && candidateStamps[index] != epoch) {
+            candidateStamps[index] = epoch;
+            record(CANDIDATES, index, candidates[index]);
+        }
+    }
+
+    /*
+     * Pushes the previous content of a slot on the trail, if a checkpoint is open.
+     */
+    private void record(int kind, int slot, int previous) {
+        if (checkpointCount == 0) {
+            return;
+        }
+        if (trailSize == trail.length) {
+            trail = Arrays.copyOf(trail, Math.max(2 * trail.length, 256));
+        }
+        trail[trailSize++] = kind << KIND_SHIFT | slot;
+        trail[trailSize++] = previous;
+    }
+
+    /*
+     * Starts a new epoch: the masks written from now on are pushed again on their first write.
+     */
+    private void nextEpoch() {
+        if (candidateStamps == null) {
+            candidateStamps = new int[candidates.length];
+        }
+        if (++epoch == 0) { // Wrapped around: forget all the stamps
+            Arrays.fill(candidateStamps, 0);
+            epoch = 1;
+        }
+    }
+
+    /*
+     * Opens a checkpoint and returns it. The changes made from now on can be undone with rollback.
+     *
+     * Checkpoints nest: rolling back to (or releasing) a checkpoint also closes the ones opened after it.
+     * They are meant to be opened when the queue is empty (after propagation), as rollback clears it.
+     */
+    public int checkpoint() {
+        if (checkpointCount == checkpointMarks.length) {
+            int capacity = Math.max(2 * checkpointCount, 16);
+            checkpointMarks = Arrays.copyOf(checkpointMarks, capacity);
+            checkpointContradictions = Arrays.copyOf(checkpointContradictions, capacity);
+            checkpointBitsets = Arrays.copyOf(checkpointBitsets, capacity * bitsetWords());
+        }
+        checkpointMarks[checkpointCount] = trailSize;
+        checkpointContradictions[checkpointCount] = contradiction;
+        int saved = checkpointCount * bitsetWords();
+        System.arraycopy(bivalueCells, 0, checkpointBitsets, saved, bivalueCells.length);
+        System.arraycopy(conjugateUnits, 0, checkpointBitsets, saved + bivalueCells.length, conjugateUnits.length);
+        nextEpoch();
+        return checkpointCount++;
+    }
+
+    /*
+     * Undoes the changes made since the checkpoint was opened, and closes it.
+     *
+     * The queue is cleared, and the modification count keeps growing (see getChangeCount).
+     */
+    public void rollback(int checkpoint) {
+        checkCheckpoint(checkpoint);
+        int mark = checkpointMarks[checkpoint];
+        while (trailSize > mark) {
+            int previous = trail[--trailSize];
+            int entry = trail[--trailSize];
+            int slot = entry & SLOT_MASK;
+            switch (entry >>> KIND_SHIFT) {
+                case VALUE -> values[slot] = previous;
+                case CANDIDATES -> restoreCandidates(slot, previous);
+                default -> placedValues[slot] = previous;
+            }
+        }
+        int saved = checkpoint * bitsetWords();
+        System.arraycopy(checkpointBitsets, saved, bivalueCells, 0, bivalueCells.length);
+        System.arraycopy(checkpointBitsets, saved + bivalueCells.length, conjugateUnits, 0, conjugateUnits.length);
+
+        contradiction = checkpointContradictions[checkpoint];
+        checkpointCount = checkpoint;
+        nextEpoch();
+        queue.clear();
+        changes++;
+    }
 
-        for (int i = 0; i < 9; i++) {
-            removeCellPossibleValue(row, i, value);
-            removeCellPossibleValue(i, column, value);
+    /*
+     * Closes the checkpoint without undoing anything: the changes made since are kept.
+     */
+    public void release(int checkpoint) {
+        checkCheckpoint(checkpoint);
+        checkpointCount = checkpoint;
+        if (checkpointCount == 0) {
+            trailSize = 0;
         }
+    }
 
-        int startRow = (row / 3) * 3;
-        int startCol = (column / 3) * 3;
-        for (int i = startRow; i < startRow + 3; i++) {
-            for (int j = startCol; j < startCol + 3; j++) {
-                removeCellPossibleValue(i, j, value);
+    /*
+     * Sets back the candidates of a cell, flipping the positions of the candidates that change.
+     */
+    private void restoreCandidates(int index, int previous) {
+        int[] units = layout.getCellUnits(index);
+        int[] unitPositions = layout.getUnitPositions(index);
+        for (int m = candidates[index] ^ previous; m != 0; m = Candidates.withoutLowest(m)) {
+            int offset = Integer.numberOfTrailingZeros(m);
+            for (int k = 0; k < units.length; k++) {
+                positions[units[k] * size + offset] ^= 1 << unitPositions[k];
             }
         }
+        candidates[index] = previous;
+    }
+
+    private int bitsetWords() {
+        return bivalueCells.length + conjugateUnits.length;
+    }
+
+    private void checkCheckpoint(int checkpoint) {
+        if (checkpoint < 0 || checkpoint >= checkpointCount) {
+            throw new IllegalArgumentException("No open checkpoint " + checkpoint + ".");
+        }
+    }
+
+    /*
+     * Keeps the bivalue bit of a cell in line with its new candidate mask.
+     */
+    private void updateBivalue(int index, int mask) {
+        if (Candidates.count(mask) == 2) {
+            bivalueCells[index >>> 6] |= 1L << index;
+        } else {
+            bivalueCells[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /*
+     * Keeps the conjugate bit of a unit and value (given by its bit offset) in line with its new positions.
+     */
+    private void updateConjugate(int unit, int offset, int positionMask) {
+        int word = offset * unitWords + (unit >>> 6);
+        if (Integer.bitCount(positionMask) == 2) {
+            conjugateUnits[word] |= 1L << unit;
+        } else {
+            conjugateUnits[word] &= ~(1L << unit);
+        }
+    }
+
+    /*
+     * Gets the first cell at or after the specified index that has exactly two candidates, or -1 if there is none.
+     */
+    public int nextBivalueCell(int index) {
+        return nextBit(bivalueCells, 0, bivalueCells.length, index);
+    }
+
+    /*
+     * Checks if the cell at the specified index has exactly two candidates.
+     */
+    public boolean isBivalue(int index) {
+        return (bivalueCells[index >>> 6] & 1L << index) != 0;
+    }
+
+    /*
+     * Gets the first unit at or after the specified one where the value has exactly
+     * two positions (a conjugate pair), or -1 if there is none.
+     */
+    public int nextConjugateUnit(int value, int unit) {
+        return nextBit(conjugateUnits, (value - 1) * unitWords, unitWords, unit);
+    }
+
+    /*
+     * Gets the first set bit at or after the specified one in a bitset stored in words [start, start + length).
+     */
+    private static int nextBit(long[] bits, int start, int length, int from) {
+        int word = from >>> 6;
+        if (word >= length) {
+            return -1;
+        }
+        long current = bits[start + word] & -1L << from;
+        while (current == 0) {
+            if (++word == length) {
+                return -1;
+            }
+            current = bits[start + word];
+        }
+        return word * Long.SIZE + Long.numberOfTrailingZeros(current);
+    }
+
+    /*
+     * Gets the positions (as a mask over the cells of the unit, see GridLayout.getUnit)
+     * where the value is still a candidate in the unit.
+     */
+    public int getPositions(int unit, int value) {
+        return positions[unit * size + value - 1];
+    }
+
+    /*
+     * Gets the queue of singles created by the changes made to the grid.
+     */
+    public PropagationQueue getQueue() {
+        return queue;
     }
 
     /*
      * Gets the cell at the specified row and column.
      */
     public Cell getCell(int row, int col) {
-        return grid[row][col];
+        return getCell(layout.index(row, col));
+    }
+
+    /*
+     * Gets the cell at the specified index.
+     */
+    public Cell getCell(int index) {
+        return new Cell(this, index);
     }
 
     /*
-     * Gets the grid.
+     * Gets the number of values placed in the grid.
      */
-    public Cell[][] getGrid() {
-        return grid;
+    public long getPlacementCount() {
+        return placements;
+    }
+
+    /*
+     * Gets the number of candidates removed from the cells of the grid.
+     */
+    public long getEliminationCount() {
+        return eliminations;
+    }
+
+    /*
+     * Gets the number of modifications made to the grid.
+     *
+     * The count grows with every placement and every change of a candidate mask,
+     * so a rule made progress if and only if the count changed while it ran.
+     */
+    public long getChangeCount() {
+        return changes;
+    }
+
+    /*
+     * Checks if the grid has reached a contradiction, i.e. it can't be completed
+     * without changing the values placed so far.
+     */
+    public boolean hasContradiction() {
+        return contradiction;
     }
 
     /*
      * Prints the grid.
      */
     public void printGrid() {
+        printGrid(System.out);
+    }
+
+    /*
+     * Prints the grid to the given stream.
+     */
+    public void printGrid(PrintStream out) {
+        int boxSize = layout.getBoxSize();
+        int width = String.valueOf(size).length();
+        String border = "*" + "-".repeat(boxSize * (boxSize * (width + 1) + 2) - 1) + "*\n";
+
         StringBuilder sb = new StringBuilder();
-        CellIterator iterator = iterator();
-        for (int row = 0; row < 9; row++) {
-            if (row % 3 == 0) {
-                sb.append("*-----------------------*\n");
+        for (int row = 0; row < size; row++) {
+            if (row % boxSize == 0) {
+                sb.append(border);
             }
-            for (int col = 0; col < 9; col++) {
-                if (col % 3 == 0) {
+            for (int col = 0; col < size; col++) {
+                if (col % boxSize == 0) {
                     sb.append("| ");
                 }
-                Cell cell = iterator.next();
-                sb.append(cell.getValue() == -1 ? "." : cell.getValue());
+                int value = values[layout.index(row, col)];
+                String text = value == -1 ? "." : String.valueOf(value);
+                sb.append(" ".repeat(width - text.length())).append(text);
                 sb.append(" ");
             }
             sb.append("|\n");
         }
-        sb.append("*-----------------------*\n");
-        System.out.print(sb);
+        sb.append(border);
+        out.print(sb);
     }
 
     /*
      * Checks if the grid is solved.
      */
     public boolean isSolved() {
-        CellIterator iterator = iterator();
-        while (iterator.hasNext()) {
-            Cell cell = iterator.next();
-            if (cell.getValue() == -1) {
+        for (int value : values) {
+            if (value == -1) {
                 return false;
             }
         }
@@ -121,10 +655,10 @@ public class SudokuGrid {
      * Transforms the linear grid to a grid with -1 for empty cells.
      */
     public int[] transformLinearGrid(int[] linearGrid) {
-        int[] transformedGrid = new int[81];
-        for (int i = 0; i < 81; i++) {
+        int[] transformedGrid = new int[linearGrid.length];
+        for (int i = 0; i < linearGrid.length; i++) {
             transformedGrid[i] = linearGrid[i] == 0 ? -1 : linearGrid[i];
         }
         return transformedGrid;
     }
-}
\ No newline at end of file
+}
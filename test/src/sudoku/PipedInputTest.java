@@ -0,0 +1,64 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PipedInputTest {
+    // Grids piped into the headless mode (--input /dev/stdin) are read as a stream:
+    // the input can be read only once, and can't be checked for a binary corpus first.
+
+    private static final Path GRIDS = Path.of("test", "test1.txt");
+    private static final Path STDIN = Path.of("/dev/stdin");
+
+    @Test
+    void pipeIsNotTakenForBinaryCorpus() throws Exception {
+        assumeTrue(Files.exists(STDIN));
+        Process process = new ProcessBuilder("cat").start();
+        try {
+            // The pipe of the child process, opened through /proc like /dev/stdin
+            Path pipe = Path.of("/proc", Long.toString(process.pid()), "fd", "0");
+            assertFalse(BinaryCorpus.isBinaryCorpus(pipe));
+        } finally {
+            process.destroy();
+        }
+    }
+
+    @Test
+    void pipedGridsAreSolvedLikeTheFile(@TempDir Path directory) throws Exception {
+        assumeTrue(Files.exists(STDIN));
+        List<String> lines = Files.readAllLines(GRIDS).subList(0, 20);
+        Path file = Files.write(directory.resolve("grids.txt"), lines);
+
+        assertEquals(solve(file, null), solve(STDIN, Files.readAllBytes(file)));
+    }
+
+    /*
+     * Runs the headless mode in a new JVM on the input file, with the input piped in if given,
+     * and returns what it wrote to the standard output.
+     */
+    private static String solve(Path file, byte[] input) throws IOException, InterruptedException {
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        Process process = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                "Main", "--input", file.toString()).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+        try (OutputStream stdin = process.getOutputStream()) {
+            if (input != null) {
+                stdin.write(input);
+            }
+        }
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+        assertEquals(0, process.waitFor(), "exit status");
+        return output;
+    }
+}